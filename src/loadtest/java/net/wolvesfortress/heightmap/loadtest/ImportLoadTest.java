@@ -0,0 +1,227 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import net.wolvesfortress.heightmap.terrain.ImportCache;
+import net.wolvesfortress.heightmap.terrain.ImportMode;
+
+import javax.annotation.Nonnull;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Headless load test for concurrent heightmap imports.
+ *
+ * <p>N simulated players each run a series of imports of mixed sizes and modes through a
+ * stand-in builder queue (see {@link StandInBuilderQueue}); a player starts its next import
+ * when the previous one finished, as the page does. Reports queue latency, world-thread stall,
+ * end-to-end latency, peak heap and throughput.
+ *
+ * <pre>
+ *   gradle loadTest -PloadTestArgs="--players 8 --imports 4 --sizes 512,1024,4096"
+ * </pre>
+ *
+ * Options: {@code --players N}, {@code --imports N} (per player), {@code --sizes a,b,…} (source
+ * side lengths), {@code --modes heightmap,surface,shell}, {@code --max-size N},
+ * {@code --height N}, {@code --warmup N} (single-player imports before measuring),
+ * {@code --seed N}. Exits with status 1 if any import failed.
+ */
+public final class ImportLoadTest {
+
+    private static final int HEAP_SAMPLE_MS = 5;
+
+    private int players = 8;
+    private int imports = 4;
+    private int[] sizes = {256, 512, 1024, 2048};
+    private List<String> modes = List.of("heightmap", "surface", "shell");
+    private int maxSize = 1024;
+    private int heightScale = 128;
+    private int warmup = 2;
+    private long seed = 1;
+
+    public static void main(String[] args) throws Exception {
+        ImportLoadTest test = new ImportLoadTest();
+        test.parse(args);
+        System.exit(test.run() ? 0 : 1);
+    }
+
+    private void parse(@Nonnull String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : "";
+            switch (args[i]) {
+                case "--players"  -> players     = Integer.parseInt(value);
+                case "--imports"  -> imports     = Integer.parseInt(value);
+                case "--sizes"    -> sizes       = Stream.of(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--modes"    -> modes       = List.of(value.toLowerCase(Locale.ROOT).split(","));
+                case "--max-size" -> maxSize     = Integer.parseInt(value);
+                case "--height"   -> heightScale = Integer.parseInt(value);
+                case "--warmup"   -> warmup      = Integer.parseInt(value);
+                case "--seed"     -> seed        = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            i++;
+        }
+    }
+
+    private boolean run() throws Exception {
+        Path dir = Files.createTempDirectory("heightmap-loadtest");
+        try {
+            List<Path> files = new ArrayList<>();
+            for (int size : sizes) {
+                files.add(writeRaw(dir.resolve("terrain_" + size + ".f32"), size));
+                files.add(writePng(dir.resolve("terrain_" + size + ".png"), size));
+            }
+
+            System.out.printf("Heightmap import load test: %d players × %d imports, sizes %s, modes %s, "
+                            + "max size %d, height %d%n",
+                    players, imports, Arrays.toString(sizes), modes, maxSize, heightScale);
+
+            // Warm-up: JIT and file cache, one player, not measured
+            try (StandInBuilderQueue queue = new StandInBuilderQueue()) {
+                Random random = new Random(seed - 1);
+                for (int i = 0; i < warmup; i++) {
+                    SimulatedImport.submit(queue, new StandInPlayer(-1), randomJob(random, files)).join();
+                }
+            }
+            ImportCache.clear();
+            System.gc();
+
+            return measure(files);
+        } finally {
+            try (Stream<Path> walk = Files.walk(dir)) {
+                walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private boolean measure(@Nonnull List<Path> files) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread heapSampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try { Thread.sleep(HEAP_SAMPLE_MS); } catch (InterruptedException e) { return; }
+            }
+        }, "heap-sampler");
+        heapSampler.setDaemon(true);
+        heapSampler.start();
+
+        Stats endToEnd = new Stats();
+        AtomicLong blocks = new AtomicLong(), sent = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        long start = System.nanoTime();
+
+        StandInBuilderQueue queue = new StandInBuilderQueue();
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+        for (int p = 0; p < players; p++) {
+            StandInPlayer player = new StandInPlayer(p);
+            Random random = new Random(seed * 31 + p);
+            // Each player imports sequentially: the next import starts when the previous one completes
+            CompletableFuture<Void> session = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < imports; i++) {
+                SimulatedImport.Job job = randomJob(random, files);
+                session = session.thenCompose(v -> {
+                    long submitted = System.nanoTime();
+                    return SimulatedImport.submit(queue, player, job).handle((result, error) -> {
+                        endToEnd.add(System.nanoTime() - submitted);
+                        if (error != null) {
+                            failed.incrementAndGet();
+                            System.err.println(player + " " + job.label() + ": " + error.getMessage());
+                        } else {
+                            blocks.addAndGet(result.blocks());
+                            sent.addAndGet(result.sentToClient());
+                        }
+                        return null;
+                    });
+                });
+            }
+            sessions.add(session);
+        }
+        CompletableFuture.allOf(sessions.toArray(new CompletableFuture[0])).join();
+        long wall = System.nanoTime() - start;
+        queue.close();
+        heapSampler.interrupt();
+
+        int total = players * imports;
+        double seconds = wall / 1e9;
+        Stats stall = queue.stall();
+        System.out.printf("imports            %d (%d failed)%n", total, failed.get());
+        System.out.printf("wall time          %.2f s%n", seconds);
+        System.out.printf("throughput         %.2f imports/s, %.1fM blocks/s%n",
+                total / seconds, blocks.get() / seconds / 1e6);
+        System.out.printf("queue latency      %s%n", queue.queueLatency().summary());
+        System.out.printf("world-thread stall %s%n", stall.summary());
+        System.out.printf("                   total %.2f s busy (%.0f%% of wall time)%n",
+                stall.total() / 1e9, 100.0 * stall.total() / wall);
+        System.out.printf("end-to-end         %s%n", endToEnd.summary());
+        System.out.printf("peak heap          %d MB (sampled every %d ms, max %d MB)%n",
+                peakHeap.get() >> 20, HEAP_SAMPLE_MS, Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("blocks             %.1fM in selections, %.1fM sent to clients%n",
+                blocks.get() / 1e6, sent.get() / 1e6);
+        return failed.get() == 0;
+    }
+
+    @Nonnull
+    private SimulatedImport.Job randomJob(@Nonnull Random random, @Nonnull List<Path> files) {
+        Path file = files.get(random.nextInt(files.size()));
+        String mode = modes.get(random.nextInt(modes.size()));
+        return switch (mode) {
+            case "shell"     -> new SimulatedImport.Job(file, ImportMode.HEIGHTMAP, maxSize, heightScale, 2, true, seed);
+            case "heightmap" -> new SimulatedImport.Job(file, ImportMode.HEIGHTMAP, maxSize, heightScale, 0, true, seed);
+            case "surface"   -> new SimulatedImport.Job(file, ImportMode.SURFACE,   maxSize, heightScale, 0, true, seed);
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+    }
+
+    // ── Synthetic heightmaps ──────────────────────────────────────────────────
+
+    /** Rolling hills plus ridges – enough relief for realistic column heights. */
+    private static float terrain(int x, int z, int size) {
+        double u = x * 6.0 / size, v = z * 6.0 / size;
+        double h = 0.5 + 0.25 * Math.sin(u) * Math.cos(v)
+                 + 0.15 * Math.sin(u * 3.1 + 1.3) * Math.sin(v * 2.7)
+                 + 0.08 * Math.abs(Math.sin(u * 9.7 - v * 8.3));
+        return (float) Math.max(0, Math.min(1, h));
+    }
+
+    @Nonnull
+    private static Path writeRaw(@Nonnull Path path, int size) throws IOException {
+        ByteBuffer row = ByteBuffer.allocate(size * 4).order(ByteOrder.LITTLE_ENDIAN);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (int z = 0; z < size; z++) {
+                row.clear();
+                for (int x = 0; x < size; x++) row.putFloat(terrain(x, z, size) * 800f);
+                out.write(row.array());
+            }
+        }
+        return path;
+    }
+
+    @Nonnull
+    private static Path writePng(@Nonnull Path path, int size) throws IOException {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = img.getRaster();
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) raster.setSample(x, z, 0, Math.round(terrain(x, z, size) * 65535));
+        }
+        ImageIO.write(img, "png", path.toFile());
+        return path;
+    }
+}
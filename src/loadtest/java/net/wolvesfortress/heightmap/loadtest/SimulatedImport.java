@@ -0,0 +1,87 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import net.wolvesfortress.heightmap.heightfield.Channel;
+import net.wolvesfortress.heightmap.terrain.BlockSampler;
+import net.wolvesfortress.heightmap.terrain.HeightmapImport;
+import net.wolvesfortress.heightmap.terrain.ImportMode;
+import net.wolvesfortress.heightmap.terrain.MaterialRules;
+import net.wolvesfortress.heightmap.terrain.WeightedBlock;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The queued part of {@code HeightmapImportPage.performImport}: the same {@link HeightmapImport}
+ * the page runs, with stand-ins for the server's selection and builder state.
+ */
+final class SimulatedImport {
+
+    private static final BlockSampler SAMPLER =
+            BlockSampler.compile(List.of(new WeightedBlock(1, 70), new WeightedBlock(2, 30)));
+    /** What {@link #SAMPLER} would be typed as on the page; only hashed. */
+    private static final String BLOCK_PATTERN = "70%1,30%2";
+
+    /** One player's import request. */
+    record Job(@Nonnull Path file, @Nonnull ImportMode mode, int maxSize, int heightScale,
+               int shellThickness, boolean lodPreview, long seed) {
+
+        @Nonnull
+        String label() {
+            String mode = shellThickness > 0 ? "SHELL" : this.mode.name();
+            return file.getFileName() + " " + mode;
+        }
+
+        @Nonnull
+        HeightmapImport.Settings settings() {
+            return new HeightmapImport.Settings(file, null, mode, Channel.LUMINANCE, 0, 0, 0, 0,
+                    false, false, null, 0, 100, maxSize, heightScale, shellThickness, seed,
+                    false, false, lodPreview, HeightmapImport.Origin.BOTTOM_CENTER, BLOCK_PATTERN, "");
+        }
+    }
+
+    /** What the import produced: blocks in the selection, and blocks sent to the client. */
+    record Result(long blocks, long sentToClient) {}
+
+    private SimulatedImport() {}
+
+    @Nonnull
+    static CompletableFuture<Result> submit(@Nonnull StandInBuilderQueue queue, @Nonnull StandInPlayer player,
+                                            @Nonnull Job job) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        queue.addToQueue(player, state -> result.complete(run(state, player, job)))
+                .exceptionally(e -> { result.completeExceptionally(e); return null; });
+        return result;
+    }
+
+    @Nonnull
+    private static Result run(@Nonnull StandInBuilderQueue.BuilderState state, @Nonnull StandInPlayer player,
+                              @Nonnull Job job) throws IOException {
+        // No colormap: BlockColorIndex is a server type
+        MaterialRules rules = MaterialRules.compile("", job.heightScale(), p -> null);
+        HeightmapImport.Result result = HeightmapImport.run(job.settings(), SAMPLER, rules, null,
+                new HeightmapImport.Target<StandInSelection>() {
+                    @Nonnull
+                    @Override
+                    public StandInSelection newSelection(int capacity) { return new StandInSelection(capacity); }
+
+                    @Override
+                    public void addBlock(@Nonnull StandInSelection selection, int x, int y, int z, int blockId) {
+                        selection.addBlockAtLocalPos(x, y, z, blockId);
+                    }
+
+                    @Override
+                    public void setArea(@Nonnull StandInSelection selection, int minX, int minY, int minZ,
+                                        int maxX, int maxY, int maxZ) {}
+
+                    @Override public void setSelection(@Nonnull StandInSelection selection) { state.setSelection(selection); }
+                    @Override public void sendSelectionToClient()                           { state.sendSelectionToClient(); }
+                },
+                status -> {});
+
+        player.sendMessage("Success! " + result.blocks() + " blocks copied to clipboard");
+        return new Result(result.blocks(), state.blocksSentToClient());
+    }
+}
@@ -0,0 +1,66 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for {@code BuilderToolsPlugin.addToQueue}: tasks run one at a time on a single
+ * "world thread", in submission order, as builder-tool work does on the server.
+ *
+ * <p>For every task it records the time spent waiting in the queue and the time the task held
+ * the world thread; the latter is the stall players on that world would feel.
+ */
+final class StandInBuilderQueue implements AutoCloseable {
+
+    /** Runs on the world thread with the stand-in builder state. */
+    @FunctionalInterface
+    interface BuilderTask {
+        void run(@Nonnull BuilderState state) throws Exception;
+    }
+
+    /** The parts of the real builder state an import uses. */
+    static final class BuilderState {
+        private StandInSelection selection;
+        private int sentToClient;
+
+        void setSelection(@Nonnull StandInSelection selection) { this.selection = selection; }
+        void sendSelectionToClient()                           { sentToClient += selection.size(); }
+        int blocksSentToClient()                               { return sentToClient; }
+    }
+
+    private final ExecutorService worldThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "world-thread");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Stats queueLatency = new Stats();
+    private final Stats stall        = new Stats();
+
+    @Nonnull
+    CompletableFuture<Void> addToQueue(@Nonnull StandInPlayer player, @Nonnull BuilderTask task) {
+        long enqueued = System.nanoTime();
+        return CompletableFuture.runAsync(() -> {
+            long started = System.nanoTime();
+            queueLatency.add(started - enqueued);
+            try {
+                task.run(new BuilderState());
+            } catch (Exception e) {
+                throw new IllegalStateException(player + ": " + e.getMessage(), e);
+            } finally {
+                stall.add(System.nanoTime() - started);
+            }
+        }, worldThread);
+    }
+
+    @Nonnull Stats queueLatency() { return queueLatency; }
+    @Nonnull Stats stall()        { return stall; }
+
+    @Override
+    public void close() throws InterruptedException {
+        worldThread.shutdown();
+        worldThread.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
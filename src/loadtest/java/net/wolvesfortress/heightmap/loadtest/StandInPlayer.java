@@ -0,0 +1,28 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Stands in for {@code PlayerRef}: an id to queue work under and a count of chat messages. */
+final class StandInPlayer {
+
+    private final int id;
+    private final AtomicInteger messages = new AtomicInteger();
+
+    StandInPlayer(int id) {
+        this.id = id;
+    }
+
+    int id() { return id; }
+
+    void sendMessage(@Nonnull String message) {
+        messages.incrementAndGet();
+    }
+
+    int messageCount() { return messages.get(); }
+
+    @Override
+    public String toString() {
+        return "player-" + id;
+    }
+}
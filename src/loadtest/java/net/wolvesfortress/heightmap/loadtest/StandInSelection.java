@@ -0,0 +1,30 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Stands in for {@code BlockSelection}: blocks are kept as packed positions plus ids, presized
+ * from the capacity hint, so heap use grows with the selection the way the real one does.
+ */
+final class StandInSelection {
+
+    private long[] positions;
+    private int[] ids;
+    private int size;
+
+    StandInSelection(int capacity) {
+        positions = new long[Math.max(16, capacity)];
+        ids       = new int[positions.length];
+    }
+
+    void addBlockAtLocalPos(int x, int y, int z, int blockId) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            ids       = Arrays.copyOf(ids, size * 2);
+        }
+        positions[size] = ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+        ids[size++]     = blockId;
+    }
+
+    int size() { return size; }
+}
@@ -0,0 +1,39 @@
+package net.wolvesfortress.heightmap.loadtest;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/** Thread-safe collection of durations in nanoseconds, summarised as percentiles. */
+final class Stats {
+
+    private long[] samples = new long[64];
+    private int count;
+
+    synchronized void add(long nanos) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() { return count; }
+
+    synchronized long total() {
+        long sum = 0;
+        for (int i = 0; i < count; i++) sum += samples[i];
+        return sum;
+    }
+
+    /** {@code p} in [0, 100]; 0 if there are no samples. */
+    synchronized long percentile(double p) {
+        if (count == 0) return 0;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int i = (int) Math.ceil(p / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, i))];
+    }
+
+    @Nonnull
+    String summary() {
+        return String.format("p50 %8.1f ms   p95 %8.1f ms   p99 %8.1f ms   max %8.1f ms",
+                percentile(50) / 1e6, percentile(95) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6);
+    }
+}
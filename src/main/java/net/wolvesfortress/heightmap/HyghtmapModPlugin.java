@@ -5,8 +5,13 @@ import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.logger.HytaleLogger;
 
 import net.wolvesfortress.heightmap.commands.HyghtmapModPluginCommand;
+import net.wolvesfortress.heightmap.heightfield.HeightKernels;
+import net.wolvesfortress.heightmap.index.HeightmapIndex;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Level;
 
 /**
@@ -17,6 +22,9 @@ public class HyghtmapModPlugin extends JavaPlugin {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
     private static HyghtmapModPlugin instance;
 
+    @Nullable private HeightmapIndex heightmapIndex;
+    @Nullable private Path importRoot;
+
     public HyghtmapModPlugin(@Nonnull JavaPluginInit init) {
         super(init);
         instance = this;
@@ -30,6 +38,28 @@ public class HyghtmapModPlugin extends JavaPlugin {
         return instance;
     }
 
+    /**
+     * Get the background heightmap index.
+     * @return The index, or null before the plugin has started
+     */
+    @Nullable
+    public HeightmapIndex getHeightmapIndex() {
+        return heightmapIndex;
+    }
+
+    /**
+     * Get the directory {@code /heightmap export} writes to: {@code Exports} below the asset-pack
+     * directory the import browser lists, so exports can be imported again from the page. Without
+     * an asset pack it falls back to the plugin's data directory, which the browser does not list.
+     * @return The export directory (may not exist yet)
+     */
+    @Nonnull
+    public Path getExportDirectory() {
+        return importRoot != null
+                ? importRoot.resolve("Exports")
+                : getDataDirectory().resolve("Exports").resolve("Heightmaps");
+    }
+
     @Override
     protected void setup() {
         // Register commands
@@ -59,10 +89,38 @@ public class HyghtmapModPlugin extends JavaPlugin {
 
     @Override
     protected void start() {
+        LOGGER.at(Level.INFO).log("[HyghtmapMod] Heightfield kernels: " + HeightKernels.get().describe());
+        startHeightmapIndex();
+    }
+
+    /**
+     * Start indexing the asset-pack import directory the import browser lists in the background, so
+     * its search is ready before the first player opens the page.
+     */
+    private void startHeightmapIndex() {
+        try {
+            heightmapIndex = new HeightmapIndex(msg -> LOGGER.at(Level.WARNING).log("[HyghtmapMod] " + msg));
+            importRoot = HeightmapImportPage.resolveImportRoot();
+            if (importRoot != null) {
+                Files.createDirectories(importRoot);
+                heightmapIndex.addRoot(importRoot);
+            } else {
+                LOGGER.at(Level.WARNING).log("[HyghtmapMod] No asset pack provides Server/Imports/Heightmaps to index");
+            }
+            // Exports live below the import root, so the index already covers them
+            Files.createDirectories(getExportDirectory());
+            heightmapIndex.start();
+        } catch (Exception e) {
+            LOGGER.at(Level.WARNING).withCause(e).log("[HyghtmapMod] Failed to start heightmap index");
+        }
     }
 
     @Override
     protected void shutdown() {
+        if (heightmapIndex != null) {
+            heightmapIndex.close();
+            heightmapIndex = null;
+        }
         instance = null;
     }
 }
\ No newline at end of file
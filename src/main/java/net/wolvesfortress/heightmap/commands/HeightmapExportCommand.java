@@ -0,0 +1,123 @@
+package net.wolvesfortress.heightmap.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.system.RequiredArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import net.wolvesfortress.heightmap.HyghtmapModPlugin;
+import net.wolvesfortress.heightmap.export.WorldHeightmapExporter;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Exports the terrain surface of a region to a heightmap file.
+ *
+ * Usage:
+ * - /heightmap export &lt;x1&gt; &lt;z1&gt; &lt;x2&gt; &lt;z2&gt; [format png|f32] [colormap true|false] [name]
+ *
+ * Files are written to {@code Exports/} under the import browser's directory, so they can be
+ * picked for import straight away (see {@link HyghtmapModPlugin#getExportDirectory()}).
+ */
+public class HeightmapExportCommand extends AbstractPlayerCommand {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    /** Longest exported side, in blocks. */
+    private static final int MAX_SIDE = 8192;
+
+    private final RequiredArg<Integer> x1Arg = withRequiredArg("x1", "First corner X", ArgTypes.INTEGER);
+    private final RequiredArg<Integer> z1Arg = withRequiredArg("z1", "First corner Z", ArgTypes.INTEGER);
+    private final RequiredArg<Integer> x2Arg = withRequiredArg("x2", "Opposite corner X", ArgTypes.INTEGER);
+    private final RequiredArg<Integer> z2Arg = withRequiredArg("z2", "Opposite corner Z", ArgTypes.INTEGER);
+    private final OptionalArg<String>  formatArg   = withOptionalArg("format", "png (16-bit) or f32", ArgTypes.STRING);
+    private final OptionalArg<Boolean> colormapArg = withOptionalArg("colormap", "Also write a block colour PNG", ArgTypes.BOOLEAN);
+    private final OptionalArg<String>  nameArg     = withOptionalArg("name", "Output file name", ArgTypes.STRING);
+
+    public HeightmapExportCommand() {
+        super("export", "Export a region's terrain surface as a heightmap");
+    }
+
+    @Override
+    protected boolean canGeneratePermission() {
+        return true; // Reads arbitrary chunks and writes files on the server
+    }
+
+    @Override
+    protected void execute(@Nonnull CommandContext context, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+        int x1 = x1Arg.get(context), z1 = z1Arg.get(context);
+        int x2 = x2Arg.get(context), z2 = z2Arg.get(context);
+        int minX = Math.min(x1, x2), minZ = Math.min(z1, z2);
+        int width = Math.abs(x2 - x1) + 1, depth = Math.abs(z2 - z1) + 1;
+        if (width > MAX_SIDE || depth > MAX_SIDE) {
+            context.sendMessage(Message.raw("Error: Region is " + width + "x" + depth + ", max " + MAX_SIDE + " per side"));
+            return;
+        }
+
+        String formatName = formatArg.provided(context) ? formatArg.get(context).toLowerCase(Locale.ROOT) : "png";
+        WorldHeightmapExporter.Format format = switch (formatName) {
+            case "png" -> WorldHeightmapExporter.Format.PNG;
+            case "f32" -> WorldHeightmapExporter.Format.F32;
+            default    -> null;
+        };
+        if (format == null) {
+            context.sendMessage(Message.raw("Error: Unknown format '" + formatName + "' (png or f32)"));
+            return;
+        }
+        if (format == WorldHeightmapExporter.Format.F32 && width != depth) {
+            context.sendMessage(Message.raw("Error: .f32 heightmaps must be square – use png for a " + width + "x" + depth + " region"));
+            return;
+        }
+        boolean colormap = colormapArg.provided(context) && Boolean.TRUE.equals(colormapArg.get(context));
+        String name = nameArg.provided(context)
+                ? nameArg.get(context).replaceAll("[^A-Za-z0-9_-]", "_")
+                : String.format("export_%d_%d_%dx%d", minX, minZ, width, depth);
+
+        Path dir = HyghtmapModPlugin.getInstance().getExportDirectory();
+        Path heightmap = dir.resolve(name + (format == WorldHeightmapExporter.Format.PNG ? ".png" : ".f32"));
+        Path colors    = colormap ? dir.resolve(name + "_color.png") : null;
+
+        context.sendMessage(Message.raw(String.format("Exporting %dx%d blocks to %s…", width, depth, heightmap.getFileName())));
+
+        // Off the world thread: the exporter blocks while the world thread loads chunks and copies their tops
+        WorldHeightmapExporter exporter = new WorldHeightmapExporter(world, minX, minZ, width, depth);
+        AtomicInteger reported = new AtomicInteger();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(dir);
+                return exporter.export(format, heightmap, colors, rows -> {
+                    int quarter = rows * 4 / depth;
+                    if (quarter > reported.get() && quarter < 4) {
+                        reported.set(quarter);
+                        playerRef.sendMessage(Message.raw("Export " + quarter * 25 + "% done"));
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }).whenComplete((result, error) -> {
+            if (error != null) {
+                LOGGER.at(Level.WARNING).withCause(error).log("[HyghtmapMod] Heightmap export failed");
+                playerRef.sendMessage(Message.raw("Export failed: " + error.getMessage()));
+                return;
+            }
+            playerRef.sendMessage(Message.raw(String.format(
+                    "Exported %dx%d heightmap (Y %d–%d) to %s%s",
+                    result.width(), result.depth(), result.minHeight(), result.maxHeight(),
+                    result.heightmap(), result.colormap() != null ? " with colormap " + result.colormap().getFileName() : "")));
+        });
+    }
+}
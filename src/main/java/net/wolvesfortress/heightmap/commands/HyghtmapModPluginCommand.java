@@ -18,11 +18,13 @@ import javax.annotation.Nonnull;
  *
  * Usage:
  * - /heightmap - Open heightmap import dialog
+ * - /heightmap export &lt;x1&gt; &lt;z1&gt; &lt;x2&gt; &lt;z2&gt; - Export a region as a heightmap (see {@link HeightmapExportCommand})
  */
 public class HyghtmapModPluginCommand extends AbstractPlayerCommand {
 
     public HyghtmapModPluginCommand() {
         super("heightmap", "Open heightmap import dialog");
+        addSubCommand(new HeightmapExportCommand());
     }
 
     @Override
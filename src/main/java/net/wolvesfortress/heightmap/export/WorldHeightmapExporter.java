@@ -0,0 +1,256 @@
+package net.wolvesfortress.heightmap.export;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.protocol.Color;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.IChunkLoader;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.wolvesfortress.heightmap.heightfield.PngWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntConsumer;
+
+/**
+ * Exports the terrain surface of a world region as a heightmap – the reverse of an import.
+ *
+ * <p>The region is scanned one band of chunk rows at a time. Only chunks that are in memory or
+ * in the world's chunk storage are read – ungenerated ones export as empty columns rather than
+ * being generated. Chunks are requested with {@link World#getNonTickingChunkAsync}, at most
+ * {@link #CHUNKS_IN_FLIGHT} at a time, so a large region never floods the world thread's queue.
+ * On the world thread, which owns the chunk's block data, only the chunk's height map and the
+ * block on top of each column are copied; turning them into rows and colours happens on the
+ * common pool. The band's rows are then appended to the output files before the next band
+ * starts. Memory is one band – {@code width × 32} heights (and colours) – however large the
+ * region.
+ *
+ * <p>Heights are written as the Y just above the top block (0 for an empty column):
+ * {@code .f32} stores them in blocks, a 16-bit PNG scales {@link #WORLD_HEIGHT} to 65535, so
+ * re-importing the PNG with height scale {@value #WORLD_HEIGHT} restores the original Y levels.
+ * A {@code .f32} does not: raw imports are min/max normalised, so it comes back with the lowest
+ * column at the bottom of the import – use height scale {@code maxHeight − minHeight} (see
+ * {@link Result}) and paste at {@code minHeight} to restore it. Raw files are read back as square
+ * grids only, so {@code .f32} needs a square region.
+ * The optional colormap is an RGB PNG of each top block's particle colour.
+ */
+public final class WorldHeightmapExporter {
+
+    /** Chunk edge length in blocks. */
+    public static final int CHUNK = 32;
+
+    /** Blocks above this Y are not scanned. */
+    public static final int WORLD_HEIGHT = 320;
+
+    /** Chunk tasks queued on the world thread at once; the next chunk waits for one to finish. */
+    private static final int CHUNKS_IN_FLIGHT = 8;
+
+    /** Output formats. */
+    public enum Format { F32, PNG }
+
+    /** What was written. */
+    public record Result(int width, int depth, int minHeight, int maxHeight,
+                         @Nonnull Path heightmap, @Nullable Path colormap) {}
+
+    private final World world;
+    private final int x0, z0, width, depth;
+
+    /** Particle colour per block id, filled lazily from the asset map. */
+    private final Map<Integer, Integer> blockColors = new ConcurrentHashMap<>();
+
+    /**
+     * @param x0    west edge of the region (inclusive, world block X)
+     * @param z0    north edge of the region (inclusive, world block Z)
+     */
+    public WorldHeightmapExporter(@Nonnull World world, int x0, int z0, int width, int depth) {
+        this.world = world;
+        this.x0    = x0;
+        this.z0    = z0;
+        this.width = width;
+        this.depth = depth;
+    }
+
+    /**
+     * Scans the region and writes the heightmap (and colormap). Blocks the calling thread until
+     * done, so it must not run on the world thread.
+     *
+     * @param colormap  where to write the colormap, or null for none
+     * @param progress  receives the number of finished rows after every band
+     */
+    @Nonnull
+    public Result export(@Nonnull Format format, @Nonnull Path heightmap, @Nullable Path colormap,
+                         @Nonnull IntConsumer progress) throws IOException {
+        int minH = Integer.MAX_VALUE, maxH = 0;
+        int[] heights = new int[width * CHUNK];
+        int[] colors  = colormap != null ? new int[width * CHUNK] : null;
+        LongSet stored = storedChunks();
+        Semaphore inFlight = new Semaphore(CHUNKS_IN_FLIGHT);
+
+        try (RowWriter heightOut = format == Format.PNG
+                     ? pngHeights(PngWriter.gray16(heightmap, width, depth), width)
+                     : f32Heights(heightmap, width);
+             PngWriter colorOut = colormap != null ? PngWriter.rgb8(colormap, width, depth) : null) {
+
+            int firstCz = Math.floorDiv(z0, CHUNK), lastCz = Math.floorDiv(z0 + depth - 1, CHUNK);
+            int firstCx = Math.floorDiv(x0, CHUNK), lastCx = Math.floorDiv(x0 + width - 1, CHUNK);
+            for (int cz = firstCz; cz <= lastCz; cz++) {
+                // Rows of the region inside this chunk row
+                int bandZ0 = Math.max(z0, cz * CHUNK), bandZ1 = Math.min(z0 + depth, (cz + 1) * CHUNK);
+
+                CompletableFuture<?>[] scans = new CompletableFuture<?>[lastCx - firstCx + 1];
+                for (int cx = firstCx; cx <= lastCx; cx++) {
+                    int chunkX = cx;
+                    long index = ChunkUtil.indexChunk(cx, cz);
+                    try {
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Export interrupted");
+                    }
+                    scans[cx - firstCx] = CompletableFuture
+                            .supplyAsync(() -> world.getChunkIfInMemory(index) != null
+                                    || (stored != null && stored.contains(index)), world)
+                            .thenCompose(exists -> exists
+                                    ? world.getNonTickingChunkAsync(index)
+                                    : CompletableFuture.<WorldChunk>completedFuture(null))
+                            .thenApplyAsync(chunk -> copyColumns(chunk, chunkX, bandZ0, bandZ1), world)
+                            .thenAcceptAsync(columns -> fillBand(columns, chunkX, bandZ0, bandZ1, heights, colors))
+                            .whenComplete((v, e) -> inFlight.release());
+                }
+                CompletableFuture.allOf(scans).join();
+
+                for (int z = bandZ0; z < bandZ1; z++) {
+                    int off = (z - bandZ0) * width;
+                    for (int i = off; i < off + width; i++) {
+                        minH = Math.min(minH, heights[i]);
+                        maxH = Math.max(maxH, heights[i]);
+                    }
+                    heightOut.writeRow(heights, off);
+                    if (colorOut != null) colorOut.writeRow(colors, off);
+                }
+                progress.accept(bandZ1 - z0);
+            }
+        }
+        return new Result(width, depth, minH, maxH, heightmap, colormap);
+    }
+
+    /** Indexes of the chunks in the world's storage, or null if the loader cannot list them. */
+    @Nullable
+    private LongSet storedChunks() throws IOException {
+        IChunkLoader loader = world.getChunkStore().getLoader();
+        return loader != null ? loader.getIndexes() : null;
+    }
+
+    /**
+     * Top of each column of one chunk inside the band: Y just above the top block (0 for none)
+     * and that block's id, row-major over the chunk's {@code CHUNK} columns per row.
+     */
+    private record Columns(@Nonnull int[] tops, @Nonnull int[] ids) {}
+
+    /**
+     * Copies the band's column tops out of the chunk's height map. Runs on the world thread, and
+     * reads one block per column; a null chunk (never generated) gives null.
+     */
+    @Nullable
+    private Columns copyColumns(@Nullable WorldChunk chunk, int cx, int bandZ0, int bandZ1) {
+        if (chunk == null) return null;
+        BlockChunk blocks = chunk.getBlockChunk();
+        int n = (bandZ1 - bandZ0) * CHUNK;
+        int[] tops = new int[n], ids = new int[n];
+        for (int z = bandZ0; z < bandZ1; z++) {
+            for (int lx = 0; lx < CHUNK; lx++) {
+                int x = cx * CHUNK + lx;
+                int y = Math.min(WORLD_HEIGHT - 1, blocks.getHeight(lx, Math.floorMod(z, CHUNK)));
+                int id = chunk.getBlock(x, y, z);
+                int i = (z - bandZ0) * CHUNK + lx;
+                tops[i] = id != 0 ? y + 1 : 0;
+                ids[i]  = id;
+            }
+        }
+        return new Columns(tops, ids);
+    }
+
+    /** Fills the band rows covered by one chunk with its column heights (and colours); runs on the common pool. */
+    private void fillBand(@Nullable Columns columns, int cx, int bandZ0, int bandZ1,
+                          @Nonnull int[] heights, @Nullable int[] colors) {
+        int bx0 = Math.max(x0, cx * CHUNK), bx1 = Math.min(x0 + width, (cx + 1) * CHUNK);
+        for (int z = bandZ0; z < bandZ1; z++) {
+            int row = (z - bandZ0) * width - x0;
+            for (int x = bx0; x < bx1; x++) {
+                int i = (z - bandZ0) * CHUNK + (x - cx * CHUNK);
+                int top = columns != null ? columns.tops()[i] : 0;
+                heights[row + x] = top;
+                if (colors != null) colors[row + x] = top > 0 ? colorOf(columns.ids()[i]) : 0;
+            }
+        }
+    }
+
+    private int colorOf(int blockId) {
+        return blockColors.computeIfAbsent(blockId, id -> {
+            BlockType type = BlockType.getAssetMap().getAsset(id);
+            Color c = type != null ? type.getParticleColor() : null;
+            return c != null ? ((c.red & 0xFF) << 16) | ((c.green & 0xFF) << 8) | (c.blue & 0xFF) : 0x808080;
+        });
+    }
+
+    // ── Height row output ─────────────────────────────────────────────────────
+
+    /** Appends rows of block heights to the heightmap file. */
+    private interface RowWriter extends Closeable {
+        void writeRow(@Nonnull int[] heights, int off) throws IOException;
+    }
+
+    @Nonnull
+    private static RowWriter pngHeights(@Nonnull PngWriter png, int width) {
+        int[] scaled = new int[width];
+        return new RowWriter() {
+            @Override
+            public void writeRow(@Nonnull int[] heights, int off) throws IOException {
+                for (int x = 0; x < width; x++) {
+                    scaled[x] = (int) Math.round(heights[off + x] * 65535.0 / WORLD_HEIGHT);
+                }
+                png.writeRow(scaled, 0);
+            }
+
+            @Override
+            public void close() throws IOException {
+                png.close();
+            }
+        };
+    }
+
+    @Nonnull
+    private static RowWriter f32Heights(@Nonnull Path path, int width) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer buf = ByteBuffer.allocateDirect(width * 4).order(ByteOrder.LITTLE_ENDIAN);
+        return new RowWriter() {
+            @Override
+            public void writeRow(@Nonnull int[] heights, int off) throws IOException {
+                buf.clear();
+                for (int x = 0; x < width; x++) buf.putFloat(heights[off + x]);
+                buf.flip();
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+
+            @Override
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+}
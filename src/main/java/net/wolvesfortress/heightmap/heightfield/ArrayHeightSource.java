@@ -0,0 +1,30 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+
+/** A heightfield that is already in memory, e.g. the output of {@link NormalIntegrator}. */
+public final class ArrayHeightSource implements HeightSource {
+
+    private final float[] values;
+    private final int width, height;
+    private final boolean normalized;
+
+    /** @param values row-major {@code [z * width + x]} */
+    public ArrayHeightSource(@Nonnull float[] values, int width, int height, boolean normalized) {
+        this.values     = values;
+        this.width      = width;
+        this.height     = height;
+        this.normalized = normalized;
+    }
+
+    @Override public int width()           { return width; }
+    @Override public int height()          { return height; }
+    @Override public boolean normalized()  { return normalized; }
+    @Override public boolean randomAccess() { return true; }
+
+    @Nonnull
+    @Override
+    public RowReader open() {
+        return (z, dst) -> System.arraycopy(values, z * width, dst, 0, width);
+    }
+}
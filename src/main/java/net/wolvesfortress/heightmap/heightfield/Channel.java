@@ -0,0 +1,6 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+/** Which part of an image pixel is read as height. */
+public enum Channel {
+    LUMINANCE, RED, GREEN, BLUE, ALPHA
+}
@@ -0,0 +1,107 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/**
+ * Resamples a colormap onto the output grid by area averaging, with optional ordered dithering.
+ *
+ * <p>Each output cell takes the mean ARGB of every colormap pixel it covers, so a 4k colormap
+ * downscaled to a few hundred columns keeps its average colours instead of picking one noisy
+ * pixel per cell. Source rows are fetched in bulk, one row per call, and output rows are
+ * processed in parallel; each output row only reads its own band of source rows.
+ *
+ * <p>The dither is an 8×8 Bayer matrix. Every cell's offset depends only on its own position,
+ * so it runs in parallel as well, which error diffusion could not. Applied before block matching,
+ * it turns smooth gradients into a pattern of the two nearest block colours instead of bands.
+ */
+public final class ColormapResampler {
+
+    /** Dither amplitude in 8-bit colour steps (peak to peak). */
+    public static final int DITHER_STRENGTH = 32;
+
+    private static final int[] BAYER_8 = {
+             0, 32,  8, 40,  2, 34, 10, 42,
+            48, 16, 56, 24, 50, 18, 58, 26,
+            12, 44,  4, 36, 14, 46,  6, 38,
+            60, 28, 52, 20, 62, 30, 54, 22,
+             3, 35, 11, 43,  1, 33,  9, 41,
+            51, 19, 59, 27, 49, 17, 57, 25,
+            15, 47,  7, 39, 13, 45,  5, 37,
+            63, 31, 55, 23, 61, 29, 53, 21};
+
+    private ColormapResampler() {}
+
+    /**
+     * Area-averages {@code image} onto a {@code outW × outH} grid; the image is stretched to
+     * cover the whole grid.
+     *
+     * @return ARGB, row-major {@code [z * outW + x]}
+     */
+    @Nonnull
+    public static int[] resample(@Nonnull BufferedImage image, int outW, int outH) {
+        int srcW = image.getWidth(), srcH = image.getHeight();
+        int[] out = new int[outW * outH];
+
+        // Source columns [x0[ox], x1[ox]) of each output column; at least one when upscaling
+        int[] x0 = new int[outW], x1 = new int[outW];
+        for (int ox = 0; ox < outW; ox++) {
+            x0[ox] = (int) ((long) ox * srcW / outW);
+            x1[ox] = Math.max(x0[ox] + 1, (int) ((long) (ox + 1) * srcW / outW));
+        }
+
+        IntStream.range(0, outH).parallel().forEach(oz -> {
+            int z0 = (int) ((long) oz * srcH / outH);
+            int z1 = Math.max(z0 + 1, (int) ((long) (oz + 1) * srcH / outH));
+            int[] row = new int[srcW];
+            long[] sums = new long[outW * 4];   // a, r, g, b per output column
+            for (int z = z0; z < z1; z++) {
+                image.getRGB(0, z, srcW, 1, row, 0, srcW);
+                for (int ox = 0; ox < outW; ox++) {
+                    long a = 0, r = 0, g = 0, b = 0;
+                    for (int x = x0[ox]; x < x1[ox]; x++) {
+                        int c = row[x];
+                        a += c >>> 24;
+                        r += (c >> 16) & 0xFF;
+                        g += (c >> 8) & 0xFF;
+                        b += c & 0xFF;
+                    }
+                    sums[ox * 4]     += a;
+                    sums[ox * 4 + 1] += r;
+                    sums[ox * 4 + 2] += g;
+                    sums[ox * 4 + 3] += b;
+                }
+            }
+            for (int ox = 0; ox < outW; ox++) {
+                long n = (long) (x1[ox] - x0[ox]) * (z1 - z0), half = n / 2;
+                out[oz * outW + ox] = (int) ((sums[ox * 4] + half) / n) << 24
+                        | (int) ((sums[ox * 4 + 1] + half) / n) << 16
+                        | (int) ((sums[ox * 4 + 2] + half) / n) << 8
+                        | (int) ((sums[ox * 4 + 3] + half) / n);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Adds the 8×8 Bayer threshold of each cell to its RGB (alpha is kept), in place.
+     */
+    public static void ditherOrdered(@Nonnull int[] argb, int width, int height) {
+        IntStream.range(0, height).parallel().forEach(z -> {
+            for (int x = 0, i = z * width; x < width; x++, i++) {
+                // Threshold centred on zero: (0..63 + 0.5) / 64 - 0.5, scaled to the strength
+                int offset = ((BAYER_8[(z & 7) * 8 + (x & 7)] * 2 + 1 - 64) * DITHER_STRENGTH) / 128;
+                int c = argb[i];
+                argb[i] = (c & 0xFF000000)
+                        | clamp(((c >> 16) & 0xFF) + offset) << 16
+                        | clamp(((c >> 8) & 0xFF) + offset) << 8
+                        | clamp((c & 0xFF) + offset);
+            }
+        });
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+}
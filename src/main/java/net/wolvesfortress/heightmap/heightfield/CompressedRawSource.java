@@ -0,0 +1,215 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A compressed square raw float file: {@code .f32.gz} / {@code .f16.gz} (gzip), or
+ * {@code .f32.deflate} / {@code .f16.deflate} (zlib or raw deflate). A bare {@code .deflate} is
+ * read as {@code .f32}.
+ *
+ * <p>The file is inflated as a stream and rows are handed out as they come out of the inflater;
+ * rows the reader skips are inflated and discarded, never buffered. Only a row's worth of
+ * uncompressed data is held at a time, so disk reads shrink by the compression ratio and memory
+ * does not grow with the file.
+ *
+ * <p>The side length comes from the gzip trailer (ISIZE, the uncompressed size mod 2³²). Deflate
+ * streams have no such field – and ISIZE wraps for files over 4 GiB – so those sizes are found by
+ * inflating the file once without keeping the output; the result is remembered per file version.
+ */
+public final class CompressedRawSource implements HeightSource {
+
+    private static final int BUFFER = 1 << 16;
+    private static final int MAX_SIZES = 32;
+
+    /** Uncompressed sizes found by a counting pass, keyed by path + modification time. */
+    private static final Map<String, Long> INFLATED_SIZES = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_SIZES;
+        }
+    };
+
+    private final Path path;
+    private final int side;
+    private final boolean half;
+    private final boolean gzip;
+    private final Crop window;
+
+    private CompressedRawSource(Path path, int side, boolean half, boolean gzip, Crop window) {
+        this.path   = path;
+        this.side   = side;
+        this.half   = half;
+        this.gzip   = gzip;
+        this.window = window;
+    }
+
+    /** True if {@code name} (lower case) is a compressed raw file this class reads. */
+    public static boolean isCompressed(@Nonnull String name) {
+        return name.endsWith(".f32.gz") || name.endsWith(".f16.gz") || name.endsWith(".deflate");
+    }
+
+    /**
+     * Opens a compressed raw file whose side length is derived from its uncompressed size.
+     *
+     * @return null if the file is not compressed, or does not inflate to a square grid
+     */
+    @Nullable
+    public static CompressedRawSource probe(@Nonnull Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!isCompressed(name)) return null;
+        boolean half = name.endsWith(".f16.gz") || name.endsWith(".f16.deflate");
+        boolean gzip = name.endsWith(".gz");
+        int bytesPer = half ? 2 : 4;
+
+        int side = gzip ? sideFor(gzipTrailerSize(path), bytesPer) : 0;
+        if (side == 0) side = sideFor(inflatedSize(path, gzip), bytesPer);
+        if (side == 0) return null;
+        return new CompressedRawSource(path, side, half, gzip, new Crop(0, 0, side, side));
+    }
+
+    /**
+     * True if {@link #probe} can size the file without inflating it: gzip files carry their size
+     * in a trailer, and deflate streams that were counted before are remembered.
+     */
+    public static boolean isSized(@Nonnull Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (!isCompressed(name)) return true;
+        int bytesPer = name.endsWith(".f16.gz") || name.endsWith(".f16.deflate") ? 2 : 4;
+        if (name.endsWith(".gz") && sideFor(gzipTrailerSize(path), bytesPer) != 0) return true;
+        String key = sizeKey(path);
+        synchronized (INFLATED_SIZES) {
+            return INFLATED_SIZES.containsKey(key);
+        }
+    }
+
+    /**
+     * Limits the source to a window of the file (see {@link Crop#clip}). Rows above the window are
+     * still inflated – a deflate stream cannot seek – but never decoded.
+     *
+     * @throws IllegalArgumentException if the window lies outside the file
+     */
+    @Nonnull
+    public CompressedRawSource crop(int x, int z, int w, int h) {
+        Crop c = Crop.clip(x, z, w, h, window.width(), window.height(), "file");
+        return new CompressedRawSource(path, side, half, gzip,
+                new Crop(window.x() + c.x(), window.z() + c.z(), c.width(), c.height()));
+    }
+
+    @Override public int width()          { return window.width(); }
+    @Override public int height()         { return window.height(); }
+    @Override public boolean normalized() { return false; }
+
+    @Nonnull
+    @Override
+    public RowReader open() throws IOException {
+        int bytesPer = half ? 2 : 4;
+        int rowBytes = side * bytesPer;
+        byte[] row = new byte[rowBytes];
+        ByteBuffer buf = ByteBuffer.wrap(row).order(ByteOrder.LITTLE_ENDIAN);
+        return new RowReader() {
+            private final InputStream in = inflate(path, gzip);
+            private int next = 0;   // file row the stream is positioned at
+
+            @Override
+            public void readRow(int z, @Nonnull float[] dst) throws IOException {
+                int fileZ = window.z() + z;
+                in.skipNBytes((long) (fileZ - next) * rowBytes);
+                if (in.readNBytes(row, 0, rowBytes) != rowBytes) {
+                    throw new IOException("Unexpected end of compressed data in row " + fileZ);
+                }
+                next = fileZ + 1;
+
+                buf.position(window.x() * bytesPer);
+                if (half) RawFloatSource.decodeHalfRow(buf, dst, window.width());
+                else      buf.asFloatBuffer().get(dst, 0, window.width());
+            }
+
+            @Override
+            public void close() throws IOException {
+                in.close();
+            }
+        };
+    }
+
+    // ── Streams ───────────────────────────────────────────────────────────────
+
+    @Nonnull
+    private static InputStream inflate(@Nonnull Path path, boolean gzip) throws IOException {
+        InputStream file = new BufferedInputStream(Files.newInputStream(path), BUFFER);
+        try {
+            if (gzip) return new GZIPInputStream(file, BUFFER);
+
+            // .deflate is zlib-wrapped by most tools, raw by some: check for a zlib header
+            file.mark(2);
+            int cmf = file.read(), flg = file.read();
+            file.reset();
+            boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+            Inflater inflater = new Inflater(!zlib);
+            return new InflaterInputStream(file, inflater, BUFFER) {
+                @Override
+                public void close() throws IOException {
+                    try { super.close(); } finally { inflater.end(); }   // not ours to end by default
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /** The ISIZE field of the last gzip member: the uncompressed size mod 2³². */
+    private static long gzipTrailerSize(@Nonnull Path path) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "r")) {
+            if (raf.length() < 18) return -1;
+            raf.seek(raf.length() - 4);
+            byte[] b = new byte[4];
+            raf.readFully(b);
+            return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0xFFFFFFFFL;
+        }
+    }
+
+    /** Inflates the whole file without keeping the output, to learn its uncompressed size. */
+    private static long inflatedSize(@Nonnull Path path, boolean gzip) throws IOException {
+        String key = sizeKey(path);
+        synchronized (INFLATED_SIZES) {
+            Long known = INFLATED_SIZES.get(key);
+            if (known != null) return known;
+        }
+        long size = 0;
+        byte[] scratch = new byte[BUFFER];
+        try (InputStream in = inflate(path, gzip)) {
+            for (int n; (n = in.read(scratch)) > 0; ) size += n;
+        }
+        synchronized (INFLATED_SIZES) {
+            INFLATED_SIZES.put(key, size);
+        }
+        return size;
+    }
+
+    @Nonnull
+    private static String sizeKey(@Nonnull Path path) throws IOException {
+        return path.toAbsolutePath().normalize() + "@" + Files.getLastModifiedTime(path).toMillis();
+    }
+
+    private static int sideFor(long bytes, int bytesPer) {
+        if (bytes <= 0 || bytes % bytesPer != 0) return 0;
+        long count = bytes / bytesPer;
+        int side = (int) Math.round(Math.sqrt(count));
+        return (long) side * side == count ? side : 0;
+    }
+}
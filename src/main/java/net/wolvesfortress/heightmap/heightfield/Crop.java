@@ -0,0 +1,52 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+
+/** A rectangular window into a heightfield, in source pixels. */
+public record Crop(int x, int z, int width, int height) {
+
+    /**
+     * Clips the requested window to a {@code fullW × fullH} source. A width or height of 0 (or
+     * less) extends to the source edge, so {@code clip(0, 0, 0, 0, …)} is the whole source.
+     *
+     * @param what what the source is called in the error message ("image", "dataset")
+     * @throws IllegalArgumentException if the window lies outside the source
+     */
+    @Nonnull
+    public static Crop clip(int x, int z, int w, int h, int fullW, int fullH, @Nonnull String what) {
+        int x0 = Math.max(0, x), z0 = Math.max(0, z);
+        int x1 = w > 0 ? (int) Math.min(fullW, (long) x0 + w) : fullW;
+        int z1 = h > 0 ? (int) Math.min(fullH, (long) z0 + h) : fullH;
+        if (x0 >= x1 || z0 >= z1) {
+            throw new IllegalArgumentException("Region lies outside the " + what + " (" + fullW + "×" + fullH + ")");
+        }
+        return new Crop(x0, z0, x1 - x0, z1 - z0);
+    }
+
+    /**
+     * The same window on a {@code toW × toH} raster covering the same ground as this window's
+     * {@code fromW × fromH} source, e.g. a colormap at a different resolution than the heights.
+     * Edges are rounded to the nearest target pixel.
+     *
+     * @param what what the target is called in the error message ("colormap")
+     * @throws IllegalArgumentException if the scaled window covers no whole target pixel
+     */
+    @Nonnull
+    public Crop scale(int fromW, int fromH, int toW, int toH, @Nonnull String what) {
+        int x0 = (int) Math.round((double) x * toW / fromW);
+        int z0 = (int) Math.round((double) z * toH / fromH);
+        int x1 = (int) Math.min(toW, Math.round((double) (x + width)  * toW / fromW));
+        int z1 = (int) Math.min(toH, Math.round((double) (z + height) * toH / fromH));
+        if (x0 >= x1 || z0 >= z1) {
+            throw new IllegalArgumentException(String.format(
+                    "Region %d×%d at %d,%d covers no pixel of the %d×%d %s",
+                    width, height, x, z, toW, toH, what));
+        }
+        return new Crop(x0, z0, x1 - x0, z1 - z0);
+    }
+
+    /** True if this window is the whole {@code fullW × fullH} source. */
+    public boolean isFull(int fullW, int fullH) {
+        return x == 0 && z == 0 && width == fullW && height == fullH;
+    }
+}
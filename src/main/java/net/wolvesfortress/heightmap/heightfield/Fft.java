@@ -0,0 +1,86 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.util.stream.IntStream;
+
+/**
+ * In-place iterative radix-2 complex FFT on split real/imaginary {@code float} arrays.
+ *
+ * <p>Twiddles and the bit-reversal permutation are computed once per size. 2-D transforms run
+ * rows and then columns in parallel; each column is copied into a per-task scratch buffer so
+ * the butterflies always work on contiguous memory.
+ */
+public final class Fft {
+
+    private final int n;
+    private final float[] cos, sin;
+    private final int[] rev;
+
+    /** @param n transform length, must be a power of two */
+    public Fft(int n) {
+        if (n < 1 || Integer.bitCount(n) != 1) throw new IllegalArgumentException("FFT size must be a power of two: " + n);
+        this.n   = n;
+        this.cos = new float[Math.max(1, n / 2)];
+        this.sin = new float[Math.max(1, n / 2)];
+        for (int i = 0; i < n / 2; i++) {
+            double a = -2 * Math.PI * i / n;
+            cos[i] = (float) Math.cos(a);
+            sin[i] = (float) Math.sin(a);
+        }
+        this.rev = new int[n];
+        int bits = Integer.numberOfTrailingZeros(n);
+        for (int i = 0; i < n; i++) rev[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+    }
+
+    /** Smallest power of two {@code >= v}. */
+    public static int nextPowerOfTwo(int v) {
+        return v <= 1 ? 1 : Integer.highestOneBit(v - 1) << 1;
+    }
+
+    /**
+     * Transforms {@code n} values starting at {@code off}. The inverse is unscaled: the caller
+     * divides by the total number of samples.
+     */
+    public void transform(@Nonnull float[] re, @Nonnull float[] im, int off, boolean inverse) {
+        for (int i = 0; i < n; i++) {
+            int j = rev[i];
+            if (j > i) {
+                float t = re[off + i]; re[off + i] = re[off + j]; re[off + j] = t;
+                t = im[off + i]; im[off + i] = im[off + j]; im[off + j] = t;
+            }
+        }
+        float sign = inverse ? -1f : 1f;
+        for (int size = 2; size <= n; size <<= 1) {
+            int half = size >>> 1, step = n / size;
+            // Twiddle-outer order: each twiddle is loaded once per stage
+            for (int k = 0; k < half; k++) {
+                float wr = cos[k * step], wi = sign * sin[k * step];
+                for (int a = off + k; a < off + n; a += size) {
+                    int b = a + half;
+                    float br = re[b] * wr - im[b] * wi;
+                    float bi = re[b] * wi + im[b] * wr;
+                    float ar = re[a], ai = im[a];
+                    re[b] = ar - br; im[b] = ai - bi;
+                    re[a] = ar + br; im[a] = ai + bi;
+                }
+            }
+        }
+    }
+
+    /**
+     * 2-D transform of a row-major {@code width×height} grid (both powers of two).
+     * The inverse is unscaled.
+     */
+    public static void transform2d(@Nonnull float[] re, @Nonnull float[] im, int width, int height, boolean inverse) {
+        Fft rows = new Fft(width);
+        IntStream.range(0, height).parallel().forEach(z -> rows.transform(re, im, z * width, inverse));
+
+        Fft cols = width == height ? rows : new Fft(height);
+        IntStream.range(0, width).parallel().forEach(x -> {
+            float[] cr = new float[height], ci = new float[height];
+            for (int z = 0; z < height; z++) { cr[z] = re[z * width + x]; ci[z] = im[z * width + x]; }
+            cols.transform(cr, ci, 0, inverse);
+            for (int z = 0; z < height; z++) { re[z * width + x] = cr[z]; im[z * width + x] = ci[z]; }
+        });
+    }
+}
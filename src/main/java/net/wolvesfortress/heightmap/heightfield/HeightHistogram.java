@@ -0,0 +1,148 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.IntStream;
+
+/**
+ * A fine-grained histogram of a source's raw values, built in one streaming pass, for picking a
+ * normalisation range by percentile.
+ *
+ * <p>Buckets are keyed by the top {@value #KEY_BITS} bits of the float's order-preserving bit
+ * pattern (sign, exponent and 11 mantissa bits), so every bucket spans about 0.05% of its value,
+ * at any magnitude, and no value range has to be known up front. Exact minimum and maximum are
+ * tracked alongside, so 0% and 100% give the true extremes.
+ *
+ * <p>NaN, infinities and an optional nodata value are masked: they are neither counted nor part
+ * of the range. Sources with {@link HeightSource#randomAccess() random access} are split into row
+ * ranges scanned on several threads; the per-thread histograms are merged at the end.
+ */
+public final class HeightHistogram {
+
+    public static final int KEY_BITS = 20;
+
+    private static final int BUCKETS = 1 << KEY_BITS;
+    private static final int SHIFT = 32 - KEY_BITS;
+    private static final int MAX_WORKERS = 4;         // each holds BUCKETS longs (8 MB)
+    private static final int MIN_ROWS_PER_WORKER = 256;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+
+    private HeightHistogram() {}
+
+    /**
+     * Reads every row of {@code source} once.
+     *
+     * @param nodata value to mask in addition to NaN and infinities, or null
+     */
+    @Nonnull
+    public static HeightHistogram scan(@Nonnull HeightSource source, @Nullable Float nodata) throws IOException {
+        int h = source.height();
+        int workers = source.randomAccess()
+                ? Math.max(1, Math.min(Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()),
+                        h / MIN_ROWS_PER_WORKER))
+                : 1;
+        HeightHistogram[] parts = new HeightHistogram[workers];
+        try {
+            IntStream.range(0, workers).parallel().forEach(w -> {
+                try {
+                    parts[w] = scanRows(source, nodata, (int) ((long) h * w / workers), (int) ((long) h * (w + 1) / workers));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        HeightHistogram merged = parts[0];
+        for (int w = 1; w < workers; w++) merged.merge(parts[w]);
+        return merged;
+    }
+
+    @Nonnull
+    private static HeightHistogram scanRows(@Nonnull HeightSource source, @Nullable Float nodata, int z0, int z1)
+            throws IOException {
+        HeightHistogram hist = new HeightHistogram();
+        long[] counts = hist.counts;
+        float[] row = new float[source.width()];
+        float lo = Float.POSITIVE_INFINITY, hi = Float.NEGATIVE_INFINITY;
+        long n = 0;
+        try (RowReader reader = source.open()) {
+            for (int z = z0; z < z1; z++) {
+                reader.readRow(z, row);
+                for (float v : row) {
+                    if (isMasked(v, nodata)) continue;
+                    counts[key(v)]++;
+                    if (v < lo) lo = v;
+                    if (v > hi) hi = v;
+                    n++;
+                }
+            }
+        }
+        hist.total = n;
+        hist.min   = lo;
+        hist.max   = hi;
+        return hist;
+    }
+
+    private void merge(@Nonnull HeightHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** True for NaN, ±infinity and {@code nodata}. */
+    public static boolean isMasked(float v, @Nullable Float nodata) {
+        return !Float.isFinite(v) || (nodata != null && v == nodata);
+    }
+
+    /** Number of unmasked values. */
+    public long count() { return total; }
+
+    /**
+     * The normalisation range that clips {@code lowPercent}% of the values at the bottom and
+     * {@code 100 - highPercent}% at the top. The low end is the lower edge of its bucket and the
+     * high end the upper edge, so clipping never cuts more than asked; both stay within the exact
+     * minimum and maximum.
+     *
+     * @return {@code {lo, hi}}, or {@code {0, 1}} if every value was masked
+     */
+    @Nonnull
+    public float[] range(double lowPercent, double highPercent) {
+        if (total == 0) return new float[]{0f, 1f};
+        float lo = lowPercent  <= 0   ? min : Math.max(min, edge(bucketAt(lowPercent), false));
+        float hi = highPercent >= 100 ? max : Math.min(max, edge(bucketAt(highPercent), true));
+        if (hi < lo) hi = lo;
+        return new float[]{lo, hi};
+    }
+
+    /** Bucket holding the value of rank {@code percent}% (1-based, nearest rank). */
+    private int bucketAt(double percent) {
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return i;
+        }
+        return BUCKETS - 1;
+    }
+
+    /** Bucket key: the top bits of the float with its ordering made unsigned-monotonic. */
+    private static int key(float v) {
+        int bits = Float.floatToRawIntBits(v);
+        int ordered = bits < 0 ? ~bits : bits ^ 0x80000000;
+        return ordered >>> SHIFT;
+    }
+
+    /** Smallest ({@code upper = false}) or largest value that falls into bucket {@code key}. */
+    private static float edge(int key, boolean upper) {
+        int ordered = (key << SHIFT) | (upper ? (1 << SHIFT) - 1 : 0);
+        int bits = ordered < 0 ? ordered ^ 0x80000000 : ~ordered;
+        return Float.intBitsToFloat(bits);
+    }
+}
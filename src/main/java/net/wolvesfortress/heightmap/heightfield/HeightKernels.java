@@ -0,0 +1,40 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Per-pixel kernels of the heightfield decode path.
+ *
+ * <p>Two implementations exist: {@link ScalarHeightKernels} and {@code VectorHeightKernels}
+ * ({@code jdk.incubator.vector}, compiled from {@code src/simd/java} so that only that source set
+ * needs the incubator module). {@link #get()} picks the vector one when the incubator module
+ * is present at runtime (server started with {@code --add-modules jdk.incubator.vector}) and the
+ * system property {@code heightmap.simd} is not {@code false}; otherwise the scalar one.
+ */
+public interface HeightKernels {
+
+    /**
+     * Extracts {@code channel} from {@code len} ARGB pixels as a value in [0,1]
+     * (luminance uses ITU-R BT.709 weights).
+     *
+     * @param hasAlpha false means the alpha channel reads as fully opaque
+     */
+    void extractChannel(@Nonnull int[] argb, int srcOff, @Nonnull float[] dst, int dstOff, int len,
+                        @Nonnull Channel channel, boolean hasAlpha);
+
+    /** Folds the minimum and maximum of {@code len} values into {@code minMax[0]} and {@code minMax[1]}; NaN is skipped. */
+    void minMax(@Nonnull float[] src, int off, int len, @Nonnull float[] minMax);
+
+    /** {@code data[i] = clamp(data[i] * scale + offset, 0, 1)} – normalise and invert in one pass. */
+    void affineClamp(@Nonnull float[] data, int off, int len, float scale, float offset);
+
+    /** Short description for the log. */
+    @Nonnull
+    String describe();
+
+    /** The kernels selected for this JVM. */
+    @Nonnull
+    static HeightKernels get() {
+        return KernelSelector.INSTANCE;
+    }
+}
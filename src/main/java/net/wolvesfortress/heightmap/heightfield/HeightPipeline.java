@@ -0,0 +1,230 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Lazy transform chain from a {@link HeightSource} to the output grid:
+ * <pre>
+ *   source → channel → normalise → invert → 3×3 blur → nearest resample
+ * </pre>
+ * Configuring the pipeline does no work. {@link #evaluate()} walks the output one row at a time
+ * and pulls only the source rows it needs. Normalise and invert are folded into one affine
+ * {@code v·scale + offset}, applied once per source row. The blur is computed only at the
+ * sampled points, from a 3-row window. The pipeline's own memory is the output grid plus three
+ * source rows, however many stages are enabled; on top of that comes what the source holds.
+ * Raw, compressed raw and non-interlaced PNG sources stream their rows, but other images,
+ * interlaced PNGs and NORMALMAP input are decoded as a whole (cropped) window first – see
+ * {@link ImageHeightSource}. Raw sources get their range from a streaming pre-pass: plain min/max,
+ * or a {@link HeightHistogram} when nodata masking or percentile clipping is set. The final
+ * quantisation to block heights happens in {@code TerrainGenerator}.
+ */
+public final class HeightPipeline {
+
+    /** Receives finished output rows in increasing {@code z} order. */
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(int z, @Nonnull float[] row);
+    }
+
+    private final HeightSource source;
+    private boolean invert;
+    private boolean blur;
+    private boolean explicitRange;
+    private float rangeMin = 0f, rangeMax = 1f;
+    @Nullable private Float nodata;
+    private double clipLow = 0, clipHigh = 100;
+    private float scale = 1f;
+    private int outW, outH;
+
+    private HeightPipeline(HeightSource source) {
+        this.source = source;
+        this.outW   = source.width();
+        this.outH   = source.height();
+    }
+
+    @Nonnull
+    public static HeightPipeline of(@Nonnull HeightSource source) {
+        return new HeightPipeline(source);
+    }
+
+    @Nonnull
+    public HeightPipeline invert(boolean invert) {
+        this.invert = invert;
+        return this;
+    }
+
+    /** Enables the 3×3 box blur (evaluated at source resolution). */
+    @Nonnull
+    public HeightPipeline blur(boolean blur) {
+        this.blur = blur;
+        return this;
+    }
+
+    /**
+     * Maps {@code [min, max]} to [0,1] instead of the source's own range. Without this, raw sources
+     * get a streaming min/max pass before evaluation.
+     */
+    @Nonnull
+    public HeightPipeline range(float min, float max) {
+        this.explicitRange = true;
+        this.rangeMin = min;
+        this.rangeMax = max;
+        return this;
+    }
+
+    /**
+     * Raw sources: masks {@code value} – it is left out of the range and imported at output 0,
+     * the lowest height, whether or not the pipeline inverts. NaN and infinities are always
+     * masked. Null for no nodata value.
+     */
+    @Nonnull
+    public HeightPipeline nodata(@Nullable Float value) {
+        this.nodata = value;
+        return this;
+    }
+
+    /**
+     * Raw sources: normalises from the {@code lowPercent} to the {@code highPercent} percentile
+     * instead of the full min/max, so isolated spikes and pits are clipped rather than
+     * flattening everything else (see {@link HeightHistogram}).
+     */
+    @Nonnull
+    public HeightPipeline clip(double lowPercent, double highPercent) {
+        this.clipLow  = lowPercent;
+        this.clipHigh = highPercent;
+        return this;
+    }
+
+    /** Downscales (never upscales) so that neither output side exceeds {@code maxSize}. */
+    @Nonnull
+    public HeightPipeline fitWithin(int maxSize) {
+        int w = source.width(), h = source.height();
+        scale = 1f; outW = w; outH = h;
+        if (w > maxSize || h > maxSize) {
+            scale = (float) maxSize / Math.max(w, h);
+            outW  = Math.max(1, Math.round(w * scale));
+            outH  = Math.max(1, Math.round(h * scale));
+        }
+        return this;
+    }
+
+    public int outputWidth()  { return outW; }
+    public int outputHeight() { return outH; }
+
+    /** Source column sampled for output column {@code x} (nearest neighbour). */
+    public int sourceX(int x) {
+        return Math.min((int) (x / scale), source.width() - 1);
+    }
+
+    /** Source row sampled for output row {@code z} (nearest neighbour). */
+    public int sourceZ(int z) {
+        return Math.min((int) (z / scale), source.height() - 1);
+    }
+
+    /** Evaluates the whole output grid, row-major {@code [z * outputWidth + x]}. */
+    @Nonnull
+    public float[] evaluate() throws IOException {
+        float[] out = new float[outW * outH];
+        evaluate((z, row) -> System.arraycopy(row, 0, out, z * outW, outW));
+        return out;
+    }
+
+    /** Evaluates the output row by row; {@code row} is reused between calls. */
+    public void evaluate(@Nonnull RowConsumer consumer) throws IOException {
+        HeightKernels kernels = HeightKernels.get();
+        int srcW = source.width(), srcH = source.height();
+
+        // Fused point-wise stage: normalise + invert as a single affine
+        float lo = rangeMin, hi = rangeMax;
+        boolean raw = !source.normalized();
+        if (raw && !explicitRange) {
+            boolean histogram = nodata != null || clipLow > 0 || clipHigh < 100;
+            float[] minMax = histogram ? HeightHistogram.scan(source, nodata).range(clipLow, clipHigh) : scanRange();
+            // min/max skips NaN but not infinities (or finds nothing in an all-NaN source)
+            if (!histogram && !(Float.isFinite(minMax[0]) && Float.isFinite(minMax[1]) && minMax[0] <= minMax[1])) {
+                minMax = HeightHistogram.scan(source, null).range(0, 100);
+            }
+            lo = minMax[0]; hi = minMax[1];
+        }
+        float range = hi - lo;
+        if (range == 0) range = 1;
+        float a = 1f / range, b = -lo / range;
+        if (invert) { a = -a; b = 1f - b; }
+        boolean identity = a == 1f && b == 0f && source.normalized();
+
+        int[] cols = new int[outW];
+        for (int x = 0; x < outW; x++) cols[x] = sourceX(x);
+
+        // 3-row window of transformed source rows, slot = z % 3
+        float[][] window = new float[blur ? 3 : 1][srcW];
+        int lastRead = -1;
+        float[] outRow = new float[outW];
+
+        try (RowReader reader = source.open()) {
+            for (int z = 0; z < outH; z++) {
+                int sz = sourceZ(z);
+                int need = blur ? Math.min(sz + 1, srcH - 1) : sz;
+                for (int r = Math.max(lastRead + 1, blur ? sz - 1 : sz); r <= need; r++) {
+                    if (r < 0) continue;
+                    int slot = blur ? r % 3 : 0;
+                    reader.readRow(r, window[slot]);
+                    // Raw rows can hold NaN holes even with no nodata value set; masked values
+                    // travel through the affine as NaN and land at 0, inverted or not
+                    if (raw) markMasked(window[slot]);
+                    if (!identity) kernels.affineClamp(window[slot], 0, srcW, a, b);
+                    if (raw) fillNaN(window[slot]);
+                    lastRead = r;
+                }
+
+                if (!blur) {
+                    float[] row = window[0];
+                    for (int x = 0; x < outW; x++) outRow[x] = row[cols[x]];
+                } else {
+                    for (int x = 0; x < outW; x++) {
+                        int sx = cols[x];
+                        float sum = 0; int n = 0;
+                        for (int r = Math.max(0, sz - 1); r <= Math.min(srcH - 1, sz + 1); r++) {
+                            float[] row = window[r % 3];
+                            for (int c = Math.max(0, sx - 1); c <= Math.min(srcW - 1, sx + 1); c++) {
+                                sum += row[c]; n++;
+                            }
+                        }
+                        outRow[x] = sum / n;
+                    }
+                }
+                consumer.accept(z, outRow);
+            }
+        }
+    }
+
+    /** Turns masked values (see {@link HeightHistogram#isMasked}) into NaN. */
+    private void markMasked(@Nonnull float[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (HeightHistogram.isMasked(row[i], nodata)) row[i] = Float.NaN;
+        }
+    }
+
+    /** Replaces NaN with 0, the bottom of the output range. */
+    private static void fillNaN(@Nonnull float[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != row[i]) row[i] = 0f;
+        }
+    }
+
+    /** Streaming min/max over every source row (no masking or clipping requested). */
+    @Nonnull
+    private float[] scanRange() throws IOException {
+        HeightKernels kernels = HeightKernels.get();
+        float[] minMax = {Float.MAX_VALUE, -Float.MAX_VALUE};
+        float[] row = new float[source.width()];
+        try (RowReader reader = source.open()) {
+            for (int z = 0; z < source.height(); z++) {
+                reader.readRow(z, row);
+                kernels.minMax(row, 0, row.length, minMax);
+            }
+        }
+        return minMax;
+    }
+}
@@ -0,0 +1,33 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * A decoded, single-channel heightfield that can be read row by row.
+ *
+ * <p>Sources are lazy: nothing is decoded until a {@link RowReader} asks for a row, and a
+ * reader may skip rows it is never asked for. {@link HeightPipeline} opens a source once
+ * per pass.
+ */
+public interface HeightSource {
+
+    int width();
+
+    int height();
+
+    /** True if values are already in [0,1] (image channels); false for raw values that need a range. */
+    boolean normalized();
+
+    /**
+     * True if readers can start at any row without decoding the rows before it, so several
+     * readers can scan disjoint row ranges in parallel.
+     */
+    default boolean randomAccess() {
+        return false;
+    }
+
+    /** Opens a new sequential reader positioned before the first row. */
+    @Nonnull
+    RowReader open() throws IOException;
+}
@@ -0,0 +1,103 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * One channel of a decoded image; rows are extracted on demand with {@link HeightKernels}.
+ *
+ * <p>Unlike the streaming sources, the image itself is resident: {@link #read} decodes the whole
+ * (cropped) window into a {@link BufferedImage} up front, so memory grows with the window.
+ * This is the path for BMP, JPEG and TGA, interlaced PNG, and normal maps; other PNGs go
+ * through {@link PngHeightSource} instead.
+ */
+public final class ImageHeightSource implements HeightSource {
+
+    private final BufferedImage image;
+    private final Channel channel;
+
+    public ImageHeightSource(@Nonnull BufferedImage image, @Nonnull Channel channel) {
+        this.image   = image;
+        this.channel = channel;
+    }
+
+    /**
+     * Decodes only the pixels inside a window of the image (see {@link Crop#clip}), through
+     * {@link ImageReadParam#setSourceRegion}; rows above and below the window are skipped by
+     * the reader, and the rest of each row is never converted.
+     *
+     * @return null if no ImageIO reader understands the file
+     * @throws IllegalArgumentException if the window lies outside the image
+     */
+    @Nullable
+    public static BufferedImage read(@Nonnull Path path, int x, int z, int w, int h) throws IOException {
+        return read(path, (fullW, fullH) -> Crop.clip(x, z, w, h, fullW, fullH, "image"));
+    }
+
+    /**
+     * Decodes the part of a colormap that covers {@code window} of a {@code sourceW × sourceH}
+     * height source. The colormap is assumed to span the same ground as the whole source, so the
+     * window is scaled by colormap size ÷ source size (see {@link Crop#scale}).
+     *
+     * @return null if no ImageIO reader understands the file
+     * @throws IllegalArgumentException if the window covers no colormap pixel
+     */
+    @Nullable
+    public static BufferedImage readMatching(@Nonnull Path path, @Nonnull Crop window, int sourceW, int sourceH)
+            throws IOException {
+        return read(path, (fullW, fullH) -> window.scale(sourceW, sourceH, fullW, fullH, "colormap"));
+    }
+
+    /** Picks the window to decode once the image's full size is known. */
+    private interface Window {
+        @Nonnull Crop of(int fullW, int fullH);
+    }
+
+    @Nullable
+    private static BufferedImage read(@Nonnull Path path, @Nonnull Window window) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(path.toFile())) {
+            if (stream == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int fullW = reader.getWidth(0), fullH = reader.getHeight(0);
+                Crop c = window.of(fullW, fullH);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (!c.isFull(fullW, fullH)) {
+                    param.setSourceRegion(new Rectangle(c.x(), c.z(), c.width(), c.height()));
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @Override public int width()          { return image.getWidth(); }
+    @Override public int height()         { return image.getHeight(); }
+    @Override public boolean normalized() { return true; }
+
+    @Nonnull
+    @Override
+    public RowReader open() {
+        int w = image.getWidth();
+        int[] argb = new int[w];
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        HeightKernels kernels = HeightKernels.get();
+        return (z, dst) -> {
+            image.getRGB(0, z, w, 1, argb, 0, w);
+            kernels.extractChannel(argb, 0, dst, 0, w, channel, hasAlpha);
+        };
+    }
+}
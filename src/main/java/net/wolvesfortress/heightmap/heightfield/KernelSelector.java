@@ -0,0 +1,23 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+/** Chooses the {@link HeightKernels} implementation once, on first use. */
+final class KernelSelector {
+
+    static final HeightKernels INSTANCE = select();
+
+    private KernelSelector() {}
+
+    private static HeightKernels select() {
+        if (!"false".equalsIgnoreCase(System.getProperty("heightmap.simd"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so the scalar path never links against the incubator module
+                return (HeightKernels) Class.forName("net.wolvesfortress.heightmap.heightfield.VectorHeightKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // fall through
+            }
+        }
+        return new ScalarHeightKernels();
+    }
+}
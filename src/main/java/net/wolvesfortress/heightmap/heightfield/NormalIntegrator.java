@@ -0,0 +1,90 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.util.stream.IntStream;
+
+/**
+ * Reconstructs a heightfield from an RGB-encoded tangent-space normal map with the
+ * Frankot–Chellappa method: the gradient field is projected onto the nearest integrable surface
+ * by a single Poisson solve in the Fourier domain, so the cost is two 2-D FFTs – O(n log n) –
+ * instead of an iterative relaxation.
+ *
+ * <p>Normals use the OpenGL convention (green points up the image). Both gradients are packed into
+ * one complex transform ({@code p + i·q}) and separated using conjugate symmetry, which halves the
+ * work and the memory. The grid is zero-padded to power-of-two sides.
+ */
+public final class NormalIntegrator {
+
+    /** Normals flatter than this are clamped to keep gradients finite. */
+    private static final float MIN_NZ = 0.05f;
+
+    private NormalIntegrator() {}
+
+    /**
+     * @param argb   row-major ARGB pixels of the normal map
+     * @return heights normalised to [0,1], row-major {@code [z * width + x]}
+     */
+    @Nonnull
+    public static float[] integrate(@Nonnull int[] argb, int width, int height) {
+        int fw = Fft.nextPowerOfTwo(width), fh = Fft.nextPowerOfTwo(height);
+        float[] re = new float[fw * fh], im = new float[fw * fh];
+
+        // 1) Gradients from normals: p = dz/dx, q = dz/drow (rows grow downwards, green grows upwards)
+        IntStream.range(0, height).parallel().forEach(z -> {
+            for (int x = 0; x < width; x++) {
+                int c = argb[z * width + x];
+                float nx = ((c >> 16) & 0xFF) / 127.5f - 1f;
+                float ny = ((c >>  8) & 0xFF) / 127.5f - 1f;
+                float nz = Math.max(MIN_NZ, (c & 0xFF) / 127.5f - 1f);
+                re[z * fw + x] = -nx / nz;
+                im[z * fw + x] =  ny / nz;
+            }
+        });
+
+        // 2) Forward FFT of p + i·q
+        Fft.transform2d(re, im, fw, fh, false);
+
+        // 3) Z(k) = -i(wx·P + wy·Q) / (wx² + wy²), with P and Q split from C = FFT(p + i·q):
+        //    P(k) = (C(k) + conj C(-k)) / 2,  Q(k) = (C(k) - conj C(-k)) / 2i
+        IntStream.range(0, fh).parallel().forEach(v -> {
+            int mv = (fh - v) % fh;
+            double wy = 2 * Math.PI * (v < fh / 2 ? v : v - fh) / fh;
+            for (int u = 0; u < fw; u++) {
+                int mu = (fw - u) % fw;
+                int k = v * fw + u, m = mv * fw + mu;
+                if (m < k) continue;                 // pair handled when visiting m
+                double wx = 2 * Math.PI * (u < fw / 2 ? u : u - fw) / fw;
+                double d = wx * wx + wy * wy;
+
+                double cr = re[k], ci = im[k], mr = re[m], mi = im[m];
+                double pr = (cr + mr) / 2, pi = (ci - mi) / 2;   // P(k)
+                double qr = (ci + mi) / 2, qi = (mr - cr) / 2;   // Q(k)
+
+                if (d == 0) { re[k] = im[k] = re[m] = im[m] = 0; continue; }
+                // Z(k) = (wx·P + wy·Q)·(-i) / d ;  Z(-k) = conj Z(k) since z is real
+                double sr = wx * pr + wy * qr, si = wx * pi + wy * qi;
+                float zr = (float) (si / d), zi = (float) (-sr / d);
+                re[k] = zr; im[k] = zi;
+                re[m] = zr; im[m] = -zi;
+            }
+        });
+
+        // 4) Inverse FFT – the real part is the height (up to scale and offset)
+        Fft.transform2d(re, im, fw, fh, true);
+
+        float[] out = new float[width * height];
+        float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+        for (int z = 0; z < height; z++) {
+            for (int x = 0; x < width; x++) {
+                float h = re[z * fw + x];
+                out[z * width + x] = h;
+                if (h < min) min = h;
+                if (h > max) max = h;
+            }
+        }
+        float range = max - min;
+        if (range == 0) range = 1;
+        for (int i = 0; i < out.length; i++) out[i] = (out[i] - min) / range;
+        return out;
+    }
+}
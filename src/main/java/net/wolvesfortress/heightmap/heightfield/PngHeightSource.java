@@ -0,0 +1,329 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A PNG decoded straight into height rows, without an intermediate {@code BufferedImage}.
+ *
+ * <p>IDAT data is inflated as a stream and unfiltered one scanline at a time; only the current
+ * and previous scanline are held. Rows the pipeline skips must still be inflated and unfiltered
+ * (each filter refers to the row above), but their channel is never extracted.
+ *
+ * <p>Handles every non-interlaced colour type: greyscale (1–16 bit), RGB and RGBA (8/16 bit),
+ * greyscale + alpha, and palette (1–8 bit), including {@code tRNS} transparency. 16-bit samples
+ * keep their full precision, and greyscale values are used as stored (ImageIO converts them
+ * through a linear grey colour space). Interlaced files return null from {@link #probe} so the
+ * caller can fall back to ImageIO.
+ */
+public final class PngHeightSource implements HeightSource {
+
+    private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+    private static final int IHDR = 0x49484452, PLTE = 0x504C5445, TRNS = 0x74524E53, IDAT = 0x49444154;
+    private static final int BUFFER = 1 << 16;
+
+    private static final int GRAY = 0, RGB = 2, PALETTE = 3, GRAY_ALPHA = 4, RGBA = 6;
+
+    private final Path path;
+    private final Channel channel;
+    private final int width, height, bitDepth, colorType;
+    private final long idatOffset;        // file offset of the first IDAT chunk
+    @Nullable private final int[] palette;       // ARGB, alpha from tRNS
+    @Nullable private final int[] transparent;   // tRNS key sample(s) for GRAY / RGB
+    private final Crop window;
+
+    private PngHeightSource(Path path, Channel channel, int width, int height, int bitDepth, int colorType,
+                            long idatOffset, @Nullable int[] palette, @Nullable int[] transparent, Crop window) {
+        this.path        = path;
+        this.channel     = channel;
+        this.width       = width;
+        this.height      = height;
+        this.bitDepth    = bitDepth;
+        this.colorType   = colorType;
+        this.idatOffset  = idatOffset;
+        this.palette     = palette;
+        this.transparent = transparent;
+        this.window      = window;
+    }
+
+    /**
+     * Reads the PNG header chunks up to the first IDAT.
+     *
+     * @return null if the file is not a PNG this decoder handles (e.g. interlaced)
+     */
+    @Nullable
+    public static PngHeightSource probe(@Nonnull Path path, @Nonnull Channel channel) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readLong() != SIGNATURE) return null;
+            long pos = 8;
+            int w = 0, h = 0, depth = 0, type = -1;
+            int[] palette = null, transparent = null;
+            while (true) {
+                int length = in.readInt();
+                int chunk  = in.readInt();
+                if (chunk == IDAT) break;
+                switch (chunk) {
+                    case IHDR -> {
+                        w     = in.readInt();
+                        h     = in.readInt();
+                        depth = in.readUnsignedByte();
+                        type  = in.readUnsignedByte();
+                        in.skipNBytes(2);                                  // compression, filter
+                        if (in.readUnsignedByte() != 0) return null;       // interlaced
+                        in.skipNBytes(length - 13L);
+                    }
+                    case PLTE -> {
+                        palette = new int[length / 3];
+                        for (int i = 0; i < palette.length; i++) {
+                            palette[i] = 0xFF000000 | (in.readUnsignedByte() << 16)
+                                    | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                        }
+                        in.skipNBytes(length - palette.length * 3L);
+                    }
+                    case TRNS -> {
+                        if (type == PALETTE && palette != null) {
+                            for (int i = 0; i < length; i++) {
+                                int a = in.readUnsignedByte();
+                                if (i < palette.length) palette[i] = (palette[i] & 0xFFFFFF) | (a << 24);
+                            }
+                            transparent = new int[0];                      // marks "has alpha"
+                        } else {
+                            transparent = new int[length / 2];
+                            for (int i = 0; i < transparent.length; i++) transparent[i] = in.readUnsignedShort();
+                            in.skipNBytes(length - transparent.length * 2L);
+                        }
+                    }
+                    default -> in.skipNBytes(length);
+                }
+                in.skipNBytes(4);                                          // CRC
+                pos += 12L + length;
+            }
+            if (w <= 0 || h <= 0 || !supported(type, depth)) return null;
+            if (type == PALETTE && palette == null) return null;
+            return new PngHeightSource(path, channel, w, h, depth, type, pos, palette, transparent,
+                    new Crop(0, 0, w, h));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static boolean supported(int type, int depth) {
+        return switch (type) {
+            case GRAY               -> depth == 1 || depth == 2 || depth == 4 || depth == 8 || depth == 16;
+            case PALETTE            -> depth == 1 || depth == 2 || depth == 4 || depth == 8;
+            case RGB, GRAY_ALPHA, RGBA -> depth == 8 || depth == 16;
+            default                 -> false;
+        };
+    }
+
+    /**
+     * Limits the source to a window of the image (see {@link Crop#clip}). Rows below the window
+     * are never inflated.
+     *
+     * @throws IllegalArgumentException if the window lies outside the image
+     */
+    @Nonnull
+    public PngHeightSource crop(int x, int z, int w, int h) {
+        Crop c = Crop.clip(x, z, w, h, window.width(), window.height(), "image");
+        return new PngHeightSource(path, channel, width, height, bitDepth, colorType, idatOffset, palette,
+                transparent, new Crop(window.x() + c.x(), window.z() + c.z(), c.width(), c.height()));
+    }
+
+    @Override public int width()          { return window.width(); }
+    @Override public int height()         { return window.height(); }
+    @Override public boolean normalized() { return true; }
+
+    @Nonnull
+    @Override
+    public RowReader open() throws IOException {
+        int channels = switch (colorType) {
+            case RGB        -> 3;
+            case GRAY_ALPHA -> 2;
+            case RGBA       -> 4;
+            default         -> 1;
+        };
+        int bitsPerPixel = channels * bitDepth;
+        int stride = (int) (((long) width * bitsPerPixel + 7) / 8);
+        int bpp    = Math.max(1, bitsPerPixel / 8);      // filter distance in bytes
+
+        InputStream file = new BufferedInputStream(Files.newInputStream(path), BUFFER);
+        Inflater inflater = new Inflater();
+        InputStream in;
+        try {
+            file.skipNBytes(idatOffset);
+            in = new InflaterInputStream(new IdatStream(file), inflater, BUFFER);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            inflater.end();
+            throw e;
+        }
+
+        int[] argb = colorType == PALETTE ? new int[window.width()] : null;
+        HeightKernels kernels = HeightKernels.get();
+        return new RowReader() {
+            private byte[] prev = new byte[stride];   // last unfiltered row (zeros above row 0)
+            private byte[] cur  = new byte[stride];
+            private int next = 0;                     // image row the stream is positioned at
+
+            @Override
+            public void readRow(int z, @Nonnull float[] dst) throws IOException {
+                int target = window.z() + z;
+                while (next <= target) {
+                    int filter = in.read();
+                    if (filter < 0 || in.readNBytes(cur, 0, stride) != stride) {
+                        throw new IOException("Unexpected end of PNG data in row " + next);
+                    }
+                    unfilter(filter, cur, prev, bpp);
+                    byte[] t = prev; prev = cur; cur = t;
+                    next++;
+                }
+                if (argb != null) {
+                    for (int i = 0; i < argb.length; i++) {
+                        int idx = sample(prev, window.x() + i, 0, 1);
+                        argb[i] = idx < palette.length ? palette[idx] : 0xFF000000;
+                    }
+                    kernels.extractChannel(argb, 0, dst, 0, argb.length, channel, transparent != null);
+                } else {
+                    extract(prev, dst, channels);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try { in.close(); } finally { inflater.end(); }
+            }
+        };
+    }
+
+    // ── Scanline decoding ─────────────────────────────────────────────────────
+
+    private static void unfilter(int filter, @Nonnull byte[] cur, @Nonnull byte[] prev, int bpp) throws IOException {
+        int n = cur.length;
+        switch (filter) {
+            case 0 -> { }
+            case 1 -> { for (int i = bpp; i < n; i++) cur[i] += cur[i - bpp]; }
+            case 2 -> { for (int i = 0; i < n; i++) cur[i] += prev[i]; }
+            case 3 -> {
+                for (int i = 0; i < n; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    cur[i] += (byte) ((left + (prev[i] & 0xFF)) >>> 1);
+                }
+            }
+            case 4 -> {
+                for (int i = 0; i < n; i++) {
+                    int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+                    int b = prev[i] & 0xFF;
+                    int c = i >= bpp ? prev[i - bpp] & 0xFF : 0;
+                    int p = a + b - c;
+                    int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+                    cur[i] += (byte) (pa <= pb && pa <= pc ? a : pb <= pc ? b : c);
+                }
+            }
+            default -> throw new IOException("Invalid PNG filter type " + filter);
+        }
+    }
+
+    /** Sample {@code c} of pixel {@code x} in an unfiltered scanline. */
+    private int sample(@Nonnull byte[] row, int x, int c, int channels) {
+        return switch (bitDepth) {
+            case 16 -> {
+                int i = (x * channels + c) * 2;
+                yield ((row[i] & 0xFF) << 8) | (row[i + 1] & 0xFF);
+            }
+            case 8  -> row[x * channels + c] & 0xFF;
+            default -> {
+                int bit = x * bitDepth;
+                yield (row[bit >> 3] >> (8 - bitDepth - (bit & 7))) & ((1 << bitDepth) - 1);
+            }
+        };
+    }
+
+    /** Writes the selected channel of the window's pixels to {@code dst}, like {@link HeightKernels#extractChannel}. */
+    private void extract(@Nonnull byte[] row, @Nonnull float[] dst, int channels) {
+        float max = (1 << bitDepth) - 1;
+        boolean color = colorType == RGB || colorType == RGBA;
+        boolean alpha = colorType == GRAY_ALPHA || colorType == RGBA;
+        for (int i = 0, n = window.width(); i < n; i++) {
+            int x = window.x() + i;
+            float v;
+            if (channel == Channel.ALPHA) {
+                if (alpha)                    v = sample(row, x, channels - 1, channels) / max;
+                else if (transparent == null) v = 1f;
+                else                          v = isTransparent(row, x, channels) ? 0f : 1f;
+            } else if (!color) {
+                v = sample(row, x, 0, channels) / max;
+            } else {
+                v = switch (channel) {
+                    case RED   -> sample(row, x, 0, channels) / max;
+                    case GREEN -> sample(row, x, 1, channels) / max;
+                    case BLUE  -> sample(row, x, 2, channels) / max;
+                    default    -> (0.2126f * sample(row, x, 0, channels)
+                                 + 0.7152f * sample(row, x, 1, channels)
+                                 + 0.0722f * sample(row, x, 2, channels)) / max; // ITU-R BT.709
+                };
+            }
+            dst[i] = Math.max(0.0f, Math.min(1.0f, v));
+        }
+    }
+
+    private boolean isTransparent(@Nonnull byte[] row, int x, int channels) {
+        for (int c = 0; c < transparent.length && c < channels; c++) {
+            if (sample(row, x, c, channels) != transparent[c]) return false;
+        }
+        return transparent.length > 0;
+    }
+
+    /** The payload of consecutive IDAT chunks as one stream; ends at the first other chunk. */
+    private static final class IdatStream extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean done;
+
+        IdatStream(@Nonnull InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            nextChunk(true);
+        }
+
+        private boolean nextChunk(boolean first) throws IOException {
+            while (remaining == 0 && !done) {
+                if (!first) in.skipNBytes(4);   // CRC of the previous chunk
+                first = false;
+                int length = in.readInt();
+                if (in.readInt() != IDAT) { done = true; break; }
+                remaining = length;
+            }
+            return !done;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk(false)) return -1;
+            remaining--;
+            return in.read();
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (!nextChunk(false)) return -1;
+            int n = in.read(b, off, Math.min(len, remaining));
+            if (n < 0) throw new EOFException("Truncated IDAT chunk");
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a PNG one row at a time: 16-bit greyscale for heights, 8-bit RGB for colormaps.
+ *
+ * <p>Rows are Paeth-filtered against the previous row (smooth terrain compresses far better
+ * than unfiltered) and deflated straight into fixed-size IDAT chunks, so only two rows and the
+ * deflater window are held however large the image is.
+ */
+public final class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK = 1 << 16;
+
+    private final DataOutputStream file;
+    private final DeflaterOutputStream idat;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final int width, height, bytesPerPixel;
+    private byte[] prev, cur;
+    private final byte[] filtered;
+    private int rows;
+
+    private PngWriter(@Nonnull Path path, int width, int height, int bitDepth, int colorType, int bytesPerPixel)
+            throws IOException {
+        this.width         = width;
+        this.height        = height;
+        this.bytesPerPixel = bytesPerPixel;
+        int stride = width * bytesPerPixel;
+        this.prev     = new byte[stride];
+        this.cur      = new byte[stride];
+        this.filtered = new byte[stride + 1];
+
+        file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), CHUNK));
+        try {
+            file.write(SIGNATURE);
+            ByteBuffer ihdr = ByteBuffer.allocate(13)     // big-endian
+                    .putInt(width).putInt(height)
+                    .put((byte) bitDepth).put((byte) colorType)
+                    .put((byte) 0).put((byte) 0).put((byte) 0);  // deflate, adaptive filters, not interlaced
+            writeChunk(file, "IHDR", ihdr.array(), 13);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        idat = new DeflaterOutputStream(new IdatOutputStream(file), deflater, CHUNK);
+    }
+
+    /** A 16-bit greyscale PNG; rows are samples in [0, 65535]. */
+    @Nonnull
+    public static PngWriter gray16(@Nonnull Path path, int width, int height) throws IOException {
+        return new PngWriter(path, width, height, 16, 0, 2);
+    }
+
+    /** An 8-bit RGB PNG; rows are packed {@code 0xRRGGBB} colours. */
+    @Nonnull
+    public static PngWriter rgb8(@Nonnull Path path, int width, int height) throws IOException {
+        return new PngWriter(path, width, height, 8, 2, 3);
+    }
+
+    /** Appends the next row; {@code row[off .. off + width)} are samples or colours, see the factories. */
+    public void writeRow(@Nonnull int[] row, int off) throws IOException {
+        if (rows == height) throw new IOException("PNG already has all " + height + " rows");
+        if (bytesPerPixel == 2) {
+            for (int x = 0; x < width; x++) {
+                int v = Math.max(0, Math.min(0xFFFF, row[off + x]));
+                cur[x * 2]     = (byte) (v >> 8);
+                cur[x * 2 + 1] = (byte) v;
+            }
+        } else {
+            for (int x = 0; x < width; x++) {
+                int c = row[off + x];
+                cur[x * 3]     = (byte) (c >> 16);
+                cur[x * 3 + 1] = (byte) (c >> 8);
+                cur[x * 3 + 2] = (byte) c;
+            }
+        }
+
+        // Paeth filter
+        filtered[0] = 4;
+        for (int i = 0; i < cur.length; i++) {
+            int a = i >= bytesPerPixel ? cur[i - bytesPerPixel] & 0xFF : 0;
+            int b = prev[i] & 0xFF;
+            int c = i >= bytesPerPixel ? prev[i - bytesPerPixel] & 0xFF : 0;
+            int p = a + b - c;
+            int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+            filtered[i + 1] = (byte) (cur[i] - (pa <= pb && pa <= pc ? a : pb <= pc ? b : c));
+        }
+        idat.write(filtered);
+
+        byte[] t = prev; prev = cur; cur = t;
+        rows++;
+    }
+
+    /**
+     * Finishes the image.
+     *
+     * @throws IOException if fewer rows than the image height were written
+     */
+    @Override
+    public void close() throws IOException {
+        try (file) {
+            idat.finish();
+            idat.flush();
+            writeChunk(file, "IEND", new byte[0], 0);
+            if (rows != height) throw new IOException("PNG closed after " + rows + " of " + height + " rows");
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeChunk(@Nonnull DataOutputStream out, @Nonnull String type, @Nonnull byte[] data, int len)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, len);
+        out.writeInt(len);
+        out.write(typeBytes);
+        out.write(data, 0, len);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /** Collects deflated bytes and emits them as IDAT chunks of up to {@link #CHUNK} bytes. */
+    private static final class IdatOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buf = new byte[CHUNK];
+        private int size;
+
+        IdatOutputStream(@Nonnull DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == buf.length) flushChunk();
+            buf[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (size == buf.length) flushChunk();
+                int n = Math.min(len, buf.length - size);
+                System.arraycopy(b, off, buf, size, n);
+                size += n; off += n; len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size > 0) flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            writeChunk(out, "IDAT", buf, size);
+            size = 0;
+        }
+
+        @Override
+        public void close() {
+            // The file stream is closed by the writer, after IEND
+        }
+    }
+}
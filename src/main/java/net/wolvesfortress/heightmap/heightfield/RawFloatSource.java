@@ -0,0 +1,122 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A square raw little-endian float file ({@code .f32}, or IEEE 754 half precision {@code .f16}).
+ *
+ * <p>Rows are read with positional reads, so skipped rows are never touched and only one row is
+ * buffered at a time. A {@link #crop cropped} source reads only the bytes inside its window.
+ */
+public final class RawFloatSource implements HeightSource {
+
+    private final Path path;
+    private final int side;
+    private final boolean half;
+    private final Crop window;
+
+    private RawFloatSource(Path path, int side, boolean half, Crop window) {
+        this.path   = path;
+        this.side   = side;
+        this.half   = half;
+        this.window = window;
+    }
+
+    /**
+     * Opens a raw file whose side length is derived from its size.
+     *
+     * @param half true for {@code .f16}, false for {@code .f32}
+     * @return null if the file is not a square grid of the given element size
+     */
+    @Nullable
+    public static RawFloatSource probe(@Nonnull Path path, boolean half) throws IOException {
+        int bytesPer = half ? 2 : 4;
+        long count = Files.size(path) / bytesPer;
+        int side = (int) Math.round(Math.sqrt(count));
+        if ((long) side * side != count || side == 0) return null; // must be square for auto-detect
+        return new RawFloatSource(path, side, half, new Crop(0, 0, side, side));
+    }
+
+    /**
+     * Limits the source to a window of the file (see {@link Crop#clip}).
+     *
+     * @throws IllegalArgumentException if the window lies outside the file
+     */
+    @Nonnull
+    public RawFloatSource crop(int x, int z, int w, int h) {
+        Crop c = Crop.clip(x, z, w, h, window.width(), window.height(), "file");
+        return new RawFloatSource(path, side, half,
+                new Crop(window.x() + c.x(), window.z() + c.z(), c.width(), c.height()));
+    }
+
+    @Override public int width()          { return window.width(); }
+    @Override public int height()         { return window.height(); }
+    @Override public boolean normalized() { return false; }
+    @Override public boolean randomAccess() { return true; }
+
+    @Nonnull
+    @Override
+    public RowReader open() throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        int bytesPer = half ? 2 : 4;
+        int w = window.width();
+        ByteBuffer buf = ByteBuffer.allocateDirect(w * bytesPer).order(ByteOrder.LITTLE_ENDIAN);
+        return new RowReader() {
+            @Override
+            public void readRow(int z, @Nonnull float[] dst) throws IOException {
+                buf.clear();
+                long pos = ((long) (window.z() + z) * side + window.x()) * bytesPer;
+                while (buf.hasRemaining()) {
+                    int n = ch.read(buf, pos + buf.position());
+                    if (n < 0) throw new IOException("Unexpected end of file in row " + z);
+                }
+                buf.flip();
+                if (half) decodeHalfRow(buf, dst, w);
+                else      buf.asFloatBuffer().get(dst, 0, w);
+            }
+
+            @Override
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+
+    /** Decodes {@code count} little-endian half floats from {@code buf}. */
+    static void decodeHalfRow(@Nonnull ByteBuffer buf, @Nonnull float[] dst, int count) {
+        for (int i = 0; i < count; i++) dst[i] = halfToFloat(buf.getShort() & 0xFFFF);
+    }
+
+    /** Convert IEEE 754 half-precision (16-bit) to single-precision float. */
+    static float halfToFloat(int half) {
+        int sign     = (half >> 15) & 0x1;
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa =  half        & 0x3FF;
+
+        int f;
+        if (exponent == 0) {
+            if (mantissa == 0) { f = sign << 31; }
+            else {
+                while ((mantissa & 0x400) == 0) { mantissa <<= 1; exponent--; }
+                exponent++;
+                mantissa &= ~0x400;
+                f = (sign << 31) | ((exponent + (127 - 15)) << 23) | (mantissa << 13);
+            }
+        } else if (exponent == 31) {
+            f = mantissa == 0
+                    ? (sign << 31) | 0x7F800000          // ±Inf
+                    : (sign << 31) | 0x7FC00000 | (mantissa << 13); // NaN
+        } else {
+            f = (sign << 31) | ((exponent + (127 - 15)) << 23) | (mantissa << 13);
+        }
+        return Float.intBitsToFloat(f);
+    }
+}
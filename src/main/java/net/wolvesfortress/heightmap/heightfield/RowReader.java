@@ -0,0 +1,20 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sequential access to the rows of a {@link HeightSource}.
+ *
+ * <p>Rows must be requested in strictly increasing order; rows in between are skipped, which
+ * lets streaming sources avoid decoding them where the format allows it.
+ */
+public interface RowReader extends Closeable {
+
+    /** Reads row {@code z} into {@code dst[0 .. width)}. */
+    void readRow(int z, @Nonnull float[] dst) throws IOException;
+
+    @Override
+    default void close() throws IOException {}
+}
@@ -0,0 +1,53 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+
+/** Plain-Java {@link HeightKernels}; always available. */
+final class ScalarHeightKernels implements HeightKernels {
+
+    @Override
+    public void extractChannel(@Nonnull int[] argb, int srcOff, @Nonnull float[] dst, int dstOff, int len,
+                               @Nonnull Channel channel, boolean hasAlpha) {
+        for (int i = 0; i < len; i++) {
+            int rgba = argb[srcOff + i];
+            float v = switch (channel) {
+                case RED       -> ((rgba >> 16) & 0xFF) / 255.0f;
+                case GREEN     -> ((rgba >>  8) & 0xFF) / 255.0f;
+                case BLUE      -> ( rgba        & 0xFF) / 255.0f;
+                case ALPHA     -> hasAlpha ? ((rgba >> 24) & 0xFF) / 255.0f : 1.0f;
+                case LUMINANCE -> {
+                    float r = ((rgba >> 16) & 0xFF) / 255.0f;
+                    float g = ((rgba >>  8) & 0xFF) / 255.0f;
+                    float b = ( rgba        & 0xFF) / 255.0f;
+                    yield 0.2126f * r + 0.7152f * g + 0.0722f * b; // ITU-R BT.709
+                }
+            };
+            dst[dstOff + i] = Math.max(0.0f, Math.min(1.0f, v));
+        }
+    }
+
+    @Override
+    public void minMax(@Nonnull float[] src, int off, int len, @Nonnull float[] minMax) {
+        float min = minMax[0], max = minMax[1];
+        for (int i = off; i < off + len; i++) {
+            float v = src[i];
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        minMax[0] = min;
+        minMax[1] = max;
+    }
+
+    @Override
+    public void affineClamp(@Nonnull float[] data, int off, int len, float scale, float offset) {
+        for (int i = off; i < off + len; i++) {
+            data[i] = Math.max(0.0f, Math.min(1.0f, data[i] * scale + offset));
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String describe() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,217 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small hillshaded, colour-ramped preview of a heightmap.
+ *
+ * <p>The source is never decoded at full resolution. Images are read through an
+ * {@link ImageReader} with source subsampling, and raw files read only every n-th row (compressed
+ * ones still inflate the rows in between, but never decode them). The
+ * subsampled grid then goes through the same {@link HeightPipeline} normalise/invert stages as an
+ * import. Results are cached per {@link Key}, so toggling settings back and forth costs nothing.
+ */
+public final class Thumbnail {
+
+    /** Longest side of a thumbnail, in samples. */
+    public static final int SIZE = 64;
+
+    private static final int MAX_ENTRIES = 16;
+
+    /** Horizontal extent, as a fraction of the longest side, that the full height range spans. */
+    private static final float RELIEF = 0.25f;
+
+    // Light from the top-left (north-west), 45° above the horizon
+    private static final float LX = -0.5f, LZ = -0.5f, LY = 0.70710677f;
+
+    // Hypsometric ramp: low green → brown → grey rock → snow
+    private static final float[]   RAMP_AT  = {0f, 0.45f, 0.75f, 1f};
+    private static final int[][]   RAMP_RGB = {{74, 118, 64}, {150, 128, 88}, {128, 124, 118}, {240, 240, 240}};
+
+    private static final Map<Key, Thumbnail> CACHE = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Thumbnail> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /** Everything a thumbnail depends on; a changed file has a new modification time. */
+    public record Key(@Nonnull String path, long modified, @Nonnull Channel channel,
+                      boolean invert, boolean normalMap) {}
+
+    private final int width, height;
+    private final int[] rgb;
+
+    private Thumbnail(int width, int height, int[] rgb) {
+        this.width  = width;
+        this.height = height;
+        this.rgb    = rgb;
+    }
+
+    public int width()  { return width; }
+    public int height() { return height; }
+
+    /** Packed {@code 0xRRGGBB} colour of sample {@code (x, z)}. */
+    public int rgb(int x, int z) {
+        return rgb[z * width + x];
+    }
+
+    @Nonnull
+    public static Key keyFor(@Nonnull Path path, @Nonnull Channel channel, boolean invert, boolean normalMap)
+            throws IOException {
+        Path abs = path.toAbsolutePath().normalize();
+        return new Key(abs.toString(), Files.getLastModifiedTime(abs).toMillis(), channel, invert, normalMap);
+    }
+
+    @Nullable
+    public static synchronized Thumbnail cached(@Nonnull Key key) {
+        return CACHE.get(key);
+    }
+
+    /**
+     * Returns the cached thumbnail for {@code key}, rendering it first if necessary.
+     *
+     * @return null if the file cannot be read as a heightmap
+     */
+    @Nullable
+    public static Thumbnail get(@Nonnull Key key) throws IOException {
+        Thumbnail t = cached(key);
+        if (t != null) return t;
+
+        t = render(key);
+        if (t != null) {
+            synchronized (Thumbnail.class) {
+                CACHE.put(key, t);
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Renders a thumbnail without consulting or filling the cache (for background indexing,
+     * which should not evict what the player is looking at).
+     *
+     * @return null if the file cannot be read as a heightmap
+     */
+    @Nullable
+    public static Thumbnail render(@Nonnull Key key) throws IOException {
+        HeightSource source = openSubsampled(Path.of(key.path()), key.channel(), key.normalMap());
+        if (source == null) return null;
+        HeightPipeline pipeline = HeightPipeline.of(source).invert(key.invert());
+        return shade(pipeline.evaluate(), pipeline.outputWidth(), pipeline.outputHeight());
+    }
+
+    // ── Subsampled decode ─────────────────────────────────────────────────────
+
+    @Nullable
+    private static HeightSource openSubsampled(@Nonnull Path path, @Nonnull Channel channel, boolean normalMap)
+            throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".f32") || name.endsWith(".f16")) {
+            RawFloatSource raw = RawFloatSource.probe(path, name.endsWith(".f16"));
+            return raw != null ? sampleRows(raw) : null;
+        }
+        if (CompressedRawSource.isCompressed(name)) {
+            CompressedRawSource raw = CompressedRawSource.probe(path);
+            return raw != null ? sampleRows(raw) : null;
+        }
+
+        BufferedImage img = readSubsampled(path);
+        if (img == null) return null;
+        if (!normalMap) return new ImageHeightSource(img, channel);
+
+        // The subsampled normals integrate in well under a millisecond at this size
+        int w = img.getWidth(), h = img.getHeight();
+        int[] argb = img.getRGB(0, 0, w, h, null, 0, w);
+        return new ArrayHeightSource(NormalIntegrator.integrate(argb, w, h), w, h, true);
+    }
+
+    /** Decodes every n-th pixel of every n-th row, so the largest side is at most {@link #SIZE}. */
+    @Nullable
+    private static BufferedImage readSubsampled(@Nonnull Path path) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(path.toFile())) {
+            if (stream == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int step = stepFor(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Reads only the rows that land in the thumbnail and keeps every n-th sample of each. */
+    @Nonnull
+    private static HeightSource sampleRows(@Nonnull HeightSource src) throws IOException {
+        int step = stepFor(src.width(), src.height());
+        int w = (src.width() + step - 1) / step, h = (src.height() + step - 1) / step;
+        float[] out = new float[w * h];
+        float[] row = new float[src.width()];
+        try (RowReader reader = src.open()) {
+            for (int z = 0; z < h; z++) {
+                reader.readRow(z * step, row);
+                for (int x = 0; x < w; x++) out[z * w + x] = row[x * step];
+            }
+        }
+        return new ArrayHeightSource(out, w, h, src.normalized());
+    }
+
+    private static int stepFor(int w, int h) {
+        return Math.max(1, (Math.max(w, h) + SIZE - 1) / SIZE);
+    }
+
+    // ── Shading ───────────────────────────────────────────────────────────────
+
+    @Nonnull
+    private static Thumbnail shade(@Nonnull float[] v, int w, int h) {
+        float relief = RELIEF * Math.max(w, h);
+        int[] rgb = new int[w * h];
+        for (int z = 0; z < h; z++) {
+            for (int x = 0; x < w; x++) {
+                float dx = (v[z * w + Math.min(x + 1, w - 1)] - v[z * w + Math.max(x - 1, 0)]) * 0.5f * relief;
+                float dz = (v[Math.min(z + 1, h - 1) * w + x] - v[Math.max(z - 1, 0) * w + x]) * 0.5f * relief;
+                // Surface normal (-dx, 1, -dz), Lambert term against the light, plus some ambient
+                float lambert = (-dx * LX + LY - dz * LZ) / (float) Math.sqrt(dx * dx + 1f + dz * dz);
+                float light   = 0.35f + 0.65f * Math.max(0f, lambert);
+
+                int[] c = ramp(v[z * w + x]);
+                rgb[z * w + x] = (clamp(c[0] * light) << 16) | (clamp(c[1] * light) << 8) | clamp(c[2] * light);
+            }
+        }
+        return new Thumbnail(w, h, rgb);
+    }
+
+    @Nonnull
+    private static int[] ramp(float t) {
+        int i = 1;
+        while (i < RAMP_AT.length - 1 && t > RAMP_AT[i]) i++;
+        float f = Math.max(0f, Math.min(1f, (t - RAMP_AT[i - 1]) / (RAMP_AT[i] - RAMP_AT[i - 1])));
+        int[] a = RAMP_RGB[i - 1], b = RAMP_RGB[i];
+        return new int[]{
+                Math.round(a[0] + (b[0] - a[0]) * f),
+                Math.round(a[1] + (b[1] - a[1]) * f),
+                Math.round(a[2] + (b[2] - a[2]) * f)};
+    }
+
+    private static int clamp(float c) {
+        return Math.max(0, Math.min(255, Math.round(c)));
+    }
+}
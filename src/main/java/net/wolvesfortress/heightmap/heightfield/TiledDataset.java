@@ -0,0 +1,297 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A grid of equally sized heightmap tiles read as one continuous {@link HeightSource}, limited to
+ * a region.
+ *
+ * <p>The dataset is either a directory of tiles named {@code …_x<col>_z<row>.<ext>} (e.g.
+ * {@code tile_x3_z7.png}), or a JSON manifest:
+ * <pre>
+ *   { "overlap": 1, "tiles": [ { "x": 0, "z": 0, "file": "dem_0_0.f32" }, … ] }
+ * </pre>
+ * Without a {@code tiles} list, the manifest's directory is scanned by name. {@code overlap} is
+ * the number of edge pixels adjacent tiles share; shared pixels are taken from the right/lower
+ * tile, so they appear once. Manifest entries must lie in the manifest's directory or below it.
+ * Grid positions without a tile read as NaN in raw datasets (masked on import) and 0 in image ones.
+ *
+ * <p>Tiles are found through a hash index on their grid position. A reader decodes only the
+ * tiles of the current tile row that intersect the region, in parallel, and drops them when it
+ * moves on to the next tile row. The rest of the dataset is never resident. Normalisation and
+ * blur run on the stitched rows, so tile borders do not show up as seams.
+ */
+public final class TiledDataset implements HeightSource {
+
+    private static final Pattern TILE_NAME =
+            Pattern.compile(".*_x(-?\\d+)_z(-?\\d+)\\.(png|bmp|jpg|jpeg|tga|f32|f16)", Pattern.CASE_INSENSITIVE);
+
+    private final Map<Long, Path> tiles;
+    private final int minTx, minTz, maxTx, maxTz;
+    private final int tileW, tileH, stepX, stepZ;
+    private final boolean raw;
+    private final Channel channel;
+    private final int regionX, regionZ, regionW, regionH;
+
+    private TiledDataset(Map<Long, Path> tiles, int minTx, int minTz, int maxTx, int maxTz,
+                         int tileW, int tileH, int overlap, boolean raw, Channel channel,
+                         int regionX, int regionZ, int regionW, int regionH) {
+        this.tiles   = tiles;
+        this.minTx   = minTx;
+        this.minTz   = minTz;
+        this.maxTx   = maxTx;
+        this.maxTz   = maxTz;
+        this.tileW   = tileW;
+        this.tileH   = tileH;
+        this.stepX   = tileW - overlap;
+        this.stepZ   = tileH - overlap;
+        this.raw     = raw;
+        this.channel = channel;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.regionW = regionW;
+        this.regionH = regionH;
+    }
+
+    /** True if {@code path} should be opened as a dataset (a directory or a {@code .json} manifest). */
+    public static boolean isDataset(@Nonnull Path path) {
+        return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                || path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    /**
+     * Builds the tile index of a dataset. Only the first tile's header is read.
+     *
+     * @param channel channel used for image tiles
+     * @throws IllegalArgumentException with a user-facing message if the dataset is unusable
+     */
+    @Nonnull
+    public static TiledDataset open(@Nonnull Path dirOrManifest, @Nonnull Channel channel) throws IOException {
+        Map<Long, Path> tiles = new HashMap<>();
+        int overlap = 0;
+
+        if (Files.isDirectory(dirOrManifest, LinkOption.NOFOLLOW_LINKS)) {
+            scanDirectory(dirOrManifest, tiles);
+        } else {
+            Path dir = dirOrManifest.toAbsolutePath().normalize().getParent();
+            boolean listed;
+            try (Reader in = Files.newBufferedReader(dirOrManifest)) {
+                JsonObject manifest = JsonParser.parseReader(in).getAsJsonObject();
+                if (manifest.has("overlap")) overlap = manifest.get("overlap").getAsInt();
+                listed = manifest.has("tiles");
+                if (listed) {
+                    for (JsonElement el : manifest.getAsJsonArray("tiles")) {
+                        JsonObject t = el.getAsJsonObject();
+                        tiles.put(key(t.get("x").getAsInt(), t.get("z").getAsInt()),
+                                dir.resolve(t.get("file").getAsString()).normalize());
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Gson reports syntax errors and missing/mistyped fields as runtime exceptions
+                throw new IllegalArgumentException("Invalid dataset manifest: " + e.getMessage());
+            }
+            // Manifests may only name tiles next to or below themselves (no "../", no absolute paths)
+            for (Path tile : tiles.values()) {
+                if (!tile.startsWith(dir)) throw new IllegalArgumentException("Tile outside the dataset directory: " + tile);
+            }
+            if (!listed) scanDirectory(dir, tiles);
+        }
+        if (tiles.isEmpty()) throw new IllegalArgumentException("No tiles named like tile_x0_z0.png found");
+
+        int minTx = Integer.MAX_VALUE, minTz = Integer.MAX_VALUE, maxTx = Integer.MIN_VALUE, maxTz = Integer.MIN_VALUE;
+        Boolean raw = null;
+        Path first = null;
+        for (Map.Entry<Long, Path> e : tiles.entrySet()) {
+            int tx = (int) (e.getKey() >> 32), tz = (int) (long) e.getKey();
+            minTx = Math.min(minTx, tx); maxTx = Math.max(maxTx, tx);
+            minTz = Math.min(minTz, tz); maxTz = Math.max(maxTz, tz);
+            boolean isRaw = isRaw(e.getValue());
+            if (raw == null) { raw = isRaw; first = e.getValue(); }
+            else if (raw != isRaw) throw new IllegalArgumentException("Dataset mixes raw and image tiles");
+        }
+
+        int[] size = probeSize(first);
+        if (size == null) throw new IllegalArgumentException("Unreadable tile: " + first.getFileName());
+        if (overlap < 0 || overlap >= Math.min(size[0], size[1])) {
+            throw new IllegalArgumentException("Tile overlap must be between 0 and the tile size");
+        }
+        int fullW = (maxTx - minTx) * (size[0] - overlap) + size[0];
+        int fullH = (maxTz - minTz) * (size[1] - overlap) + size[1];
+        return new TiledDataset(tiles, minTx, minTz, maxTx, maxTz, size[0], size[1], overlap, raw, channel,
+                0, 0, fullW, fullH);
+    }
+
+    /**
+     * Limits the dataset to a region in dataset pixels (the top-left tile's corner is 0,0).
+     * The region is clipped to the dataset; a width or height of 0 extends to the dataset edge.
+     *
+     * @throws IllegalArgumentException if the region lies outside the dataset
+     */
+    @Nonnull
+    public TiledDataset region(int x, int z, int w, int h) {
+        Crop c = Crop.clip(x, z, w, h, fullWidth(), fullHeight(), "dataset");
+        return new TiledDataset(tiles, minTx, minTz, maxTx, maxTz, tileW, tileH, tileW - stepX, raw, channel,
+                c.x(), c.z(), c.width(), c.height());
+    }
+
+    public int fullWidth()  { return (maxTx - minTx) * stepX + tileW; }
+    public int fullHeight() { return (maxTz - minTz) * stepZ + tileH; }
+    public int tileCount()  { return tiles.size(); }
+
+    @Override public int width()          { return regionW; }
+    @Override public int height()         { return regionH; }
+    @Override public boolean normalized() { return !raw; }
+
+    @Nonnull
+    @Override
+    public RowReader open() {
+        int firstTx = tileX(regionX), lastTx = tileX(regionX + regionW - 1);
+        return new RowReader() {
+            private int loadedTz = Integer.MIN_VALUE;
+            private float[][] row = new float[lastTx - firstTx + 1][];
+            // Holes in the grid: NaN in raw data, so the pipeline masks them instead of taking
+            // them as height 0; black in images, which have a fixed range anyway
+            private final float hole = raw ? Float.NaN : 0f;
+
+            @Override
+            public void readRow(int z, @Nonnull float[] dst) throws IOException {
+                int gz = regionZ + z;
+                int tz = tileZ(gz);
+                if (tz != loadedTz) {
+                    row = null;            // evict the previous tile row before decoding the next
+                    row = loadTileRow(tz, firstTx, lastTx);
+                    loadedTz = tz;
+                }
+                int lz = gz - (tz - minTz) * stepZ;
+
+                int x = 0;
+                while (x < regionW) {
+                    int gx = regionX + x;
+                    int tx = tileX(gx);
+                    int lx = gx - (tx - minTx) * stepX;
+                    int end = tx == lastTx ? regionW : Math.min(regionW, (tx + 1 - minTx) * stepX - regionX);
+                    float[] tile = row[tx - firstTx];
+                    if (tile != null) System.arraycopy(tile, lz * tileW + lx, dst, x, end - x);
+                    else              Arrays.fill(dst, x, end, hole);
+                    x = end;
+                }
+            }
+        };
+    }
+
+    // ── Tiles ─────────────────────────────────────────────────────────────────
+
+    private int tileX(int gx) { return minTx + Math.min(gx / stepX, maxTx - minTx); }
+    private int tileZ(int gz) { return minTz + Math.min(gz / stepZ, maxTz - minTz); }
+
+    /** Decodes the tiles {@code firstTx..lastTx} of tile row {@code tz} in parallel; missing tiles are null. */
+    @Nonnull
+    private float[][] loadTileRow(int tz, int firstTx, int lastTx) throws IOException {
+        try {
+            return IntStream.rangeClosed(firstTx, lastTx).parallel()
+                    .mapToObj(tx -> {
+                        Path p = tiles.get(key(tx, tz));
+                        try {
+                            return p != null ? loadTile(p) : null;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toArray(float[][]::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Nonnull
+    private float[] loadTile(@Nonnull Path path) throws IOException {
+        HeightSource src;
+        if (raw) {
+            src = RawFloatSource.probe(path, path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".f16"));
+        } else {
+            src = path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".png")
+                    ? PngHeightSource.probe(path, channel) : null;
+            if (src == null) {
+                BufferedImage img = ImageIO.read(path.toFile());
+                src = img != null ? new ImageHeightSource(img, channel) : null;
+            }
+        }
+        if (src == null) throw new IOException("Unreadable tile: " + path.getFileName());
+        if (src.width() != tileW || src.height() != tileH) {
+            throw new IOException("Tile " + path.getFileName() + " is " + src.width() + "×" + src.height()
+                    + ", expected " + tileW + "×" + tileH);
+        }
+        float[] out = new float[tileW * tileH];
+        float[] rowBuf = new float[tileW];
+        try (RowReader reader = src.open()) {
+            for (int z = 0; z < tileH; z++) {
+                reader.readRow(z, rowBuf);
+                System.arraycopy(rowBuf, 0, out, z * tileW, tileW);
+            }
+        }
+        return out;
+    }
+
+    private static void scanDirectory(@Nonnull Path dir, @Nonnull Map<Long, Path> tiles) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = TILE_NAME.matcher(p.getFileName().toString());
+                if (m.matches()) tiles.put(key(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))), p);
+            });
+        }
+    }
+
+    private static long key(int tx, int tz) {
+        return ((long) tx << 32) | (tz & 0xFFFFFFFFL);
+    }
+
+    private static boolean isRaw(@Nonnull Path p) {
+        String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".f32") || name.endsWith(".f16");
+    }
+
+    /** Width and height from the file header, or null. */
+    @Nullable
+    private static int[] probeSize(@Nonnull Path p) throws IOException {
+        if (isRaw(p)) {
+            RawFloatSource src = RawFloatSource.probe(p, p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".f16"));
+            return src != null ? new int[]{src.width(), src.height()} : null;
+        }
+        try (ImageInputStream stream = ImageIO.createImageInputStream(p.toFile())) {
+            if (stream == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
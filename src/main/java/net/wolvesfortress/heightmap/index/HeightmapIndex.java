@@ -0,0 +1,394 @@
+package net.wolvesfortress.heightmap.index;
+
+import net.wolvesfortress.heightmap.heightfield.Channel;
+import net.wolvesfortress.heightmap.heightfield.CompressedRawSource;
+import net.wolvesfortress.heightmap.heightfield.Thumbnail;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Background index of every heightmap below a set of root directories.
+ *
+ * <p>A single daemon thread walks each root once, probes file headers (dimensions, format, bit
+ * depth – no pixel decoding), and then keeps the index current from a {@link WatchService}. When
+ * there are no file events it renders default thumbnails one file at a time. Thumbnails are held
+ * through soft references, so a directory of thousands of tiles cannot exhaust the heap.
+ *
+ * <p>Queries read concurrent maps and never open a file; {@link #lookup} costs one {@code stat}.
+ */
+public final class HeightmapIndex implements Closeable {
+
+    /** Extensions the index picks up (lower case, with dot). */
+    public static final Set<String> EXTENSIONS = Set.of(".png", ".bmp", ".jpg", ".jpeg", ".tga", ".f32", ".f16", ".gz", ".deflate");
+
+    private static final long IDLE_POLL_MS = 500;
+
+    /**
+     * Probed header of one heightmap file.
+     *
+     * @param normalized false for raw float heights, which carry no fixed range (see {@code HeightSource})
+     */
+    public record Entry(@Nonnull Path path, long size, long modified,
+                        int width, int height, @Nonnull String format, int bitDepth, boolean normalized) {
+
+        /** File name in lower case. */
+        @Nonnull
+        public String name() {
+            return path.getFileName().toString().toLowerCase(Locale.ROOT);
+        }
+
+        /** Short description, e.g. {@code "4096×4096 PNG 16-bit"}. */
+        @Nonnull
+        public String describe() {
+            return width + "×" + height + " " + format + " " + bitDepth + "-bit";
+        }
+    }
+
+    private record CachedThumbnail(@Nonnull Thumbnail.Key key, @Nonnull SoftReference<Thumbnail> ref) {}
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Path, CachedThumbnail> thumbnails = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private final Set<Path> roots = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<Path> pendingRoots = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Path> pendingThumbnails = new LinkedBlockingQueue<>();
+    private final Consumer<String> log;
+
+    @Nullable private WatchService watcher;
+    @Nullable private Thread thread;
+    private volatile boolean closed;
+    /** Roots queued or being walked; counted up before queueing, down after the walk, so never early zero. */
+    private final AtomicInteger unscannedRoots = new AtomicInteger();
+
+    /** @param log receives warnings from the indexing thread */
+    public HeightmapIndex(@Nonnull Consumer<String> log) {
+        this.log = log;
+    }
+
+    /** Starts the indexing thread; roots added before or after are both picked up. */
+    public synchronized void start() throws IOException {
+        if (thread != null) return;
+        watcher = FileSystems.getDefault().newWatchService();
+        thread  = new Thread(this::run, "HeightmapIndex");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /** Adds a directory to index (with its subdirectories). Adding a known root does nothing. */
+    public void addRoot(@Nonnull Path root) {
+        Path abs = root.toAbsolutePath().normalize();
+        if (roots.add(abs)) enqueue(abs);
+    }
+
+    /** True once every root added so far has been walked. */
+    public boolean isReady() {
+        return unscannedRoots.get() == 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The indexed header of {@code path}, provided the file has not been modified since it was
+     * probed (one {@code stat}, no read).
+     */
+    @Nullable
+    public Entry lookup(@Nonnull Path path) {
+        Path abs = path.toAbsolutePath().normalize();
+        Entry e = entries.get(abs);
+        if (e == null) return null;
+        try {
+            return Files.getLastModifiedTime(abs).toMillis() == e.modified() ? e : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /** A thumbnail the index has already rendered for exactly this key, or null. */
+    @Nullable
+    public Thumbnail thumbnail(@Nonnull Thumbnail.Key key) {
+        CachedThumbnail c = thumbnails.get(Path.of(key.path()));
+        return c != null && c.key().equals(key) ? c.ref().get() : null;
+    }
+
+    /** Whatever thumbnail the index has rendered for {@code path} (luminance, not inverted), or null. */
+    @Nullable
+    public Thumbnail thumbnail(@Nonnull Path path) {
+        CachedThumbnail c = thumbnails.get(path.toAbsolutePath().normalize());
+        return c != null ? c.ref().get() : null;
+    }
+
+    /**
+     * Indexed files directly inside {@code dir} (not in its subdirectories), sorted by name.
+     *
+     * @param extensions only files with one of these extensions; null for all indexed files
+     */
+    @Nonnull
+    public List<Entry> files(@Nonnull Path dir, @Nullable Set<String> extensions, int limit) {
+        Path absDir = dir.toAbsolutePath().normalize();
+        List<Entry> hits = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            if (!absDir.equals(e.path().getParent())) continue;
+            if (extensions != null && !extensions.contains(extensionOf(e.name()))) continue;
+            hits.add(e);
+        }
+        hits.sort(Comparator.comparing(Entry::name));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /** Indexed directories directly inside {@code dir}, sorted by name. */
+    @Nonnull
+    public List<Path> subdirectories(@Nonnull Path dir) {
+        Path absDir = dir.toAbsolutePath().normalize();
+        List<Path> dirs = new ArrayList<>();
+        for (Path d : watchedDirs.values()) {
+            if (absDir.equals(d.getParent())) dirs.add(d);
+        }
+        dirs.sort(Comparator.comparing(d -> d.getFileName().toString().toLowerCase(Locale.ROOT)));
+        return dirs;
+    }
+
+    /**
+     * Files below {@code root} whose relative path contains {@code query} (case-insensitive),
+     * sorted by path.
+     *
+     * @param extensions only files with one of these extensions; null for all indexed files
+     */
+    @Nonnull
+    public List<Entry> search(@Nonnull Path root, @Nonnull String query,
+                              @Nullable Set<String> extensions, int limit) {
+        Path absRoot = root.toAbsolutePath().normalize();
+        String q = query.toLowerCase(Locale.ROOT);
+        List<Entry> hits = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            if (!e.path().startsWith(absRoot)) continue;
+            if (extensions != null && !extensions.contains(extensionOf(e.name()))) continue;
+            String rel = absRoot.relativize(e.path()).toString().toLowerCase(Locale.ROOT);
+            if (rel.contains(q)) hits.add(e);
+        }
+        hits.sort(Comparator.comparing(Entry::path));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (thread != null) thread.interrupt();
+        try {
+            if (watcher != null) watcher.close();
+        } catch (IOException ignored) {}
+    }
+
+    // ── Indexing thread ───────────────────────────────────────────────────────
+
+    private void run() {
+        try {
+            while (!closed) {
+                Path root;
+                while ((root = pendingRoots.poll()) != null) {
+                    try {
+                        scanTree(root);
+                    } finally {
+                        unscannedRoots.decrementAndGet();
+                    }
+                }
+
+                // Block on file events only when there is no thumbnail work left
+                WatchKey key = pendingThumbnails.isEmpty()
+                        ? watcher.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS)
+                        : watcher.poll();
+                if (key != null) handleEvents(key);
+                else             renderNextThumbnail();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        } catch (RuntimeException e) {
+            log.accept("Heightmap index stopped: " + e);
+        }
+    }
+
+    private void enqueue(@Nonnull Path root) {
+        unscannedRoots.incrementAndGet();
+        pendingRoots.add(root);
+    }
+
+    private void scanTree(@Nonnull Path dir) {
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) return;
+        try {
+            Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) throws IOException {
+                    watchedDirs.put(d.register(watcher,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_DELETE,
+                            StandardWatchEventKinds.ENTRY_MODIFY), d);
+                    return closed ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) index(file, attrs);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.accept("Could not index " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private void handleEvents(@Nonnull WatchKey key) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost – walk everything again (probes are cheap, unchanged entries are kept)
+                roots.forEach(this::enqueue);
+                continue;
+            }
+            if (dir == null) continue;
+            Path child = dir.resolve((Path) event.context()).toAbsolutePath().normalize();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                remove(child);
+            } else if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) scanTree(child);
+            } else {
+                try {
+                    index(child, Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                } catch (IOException e) {
+                    remove(child);
+                }
+            }
+        }
+        if (!key.reset()) watchedDirs.remove(key);
+    }
+
+    private void index(@Nonnull Path file, @Nonnull BasicFileAttributes attrs) {
+        Path abs = file.toAbsolutePath().normalize();
+        if (!EXTENSIONS.contains(extensionOf(abs.getFileName().toString().toLowerCase(Locale.ROOT)))) return;
+
+        long modified = attrs.lastModifiedTime().toMillis();
+        Entry known = entries.get(abs);
+        if (known != null && known.modified() == modified && known.size() == attrs.size()) return;
+
+        Entry probed = probe(abs, attrs.size(), modified);
+        if (probed == null) {
+            // Unreadable, or still being written – a later MODIFY event will retry
+            remove(abs);
+            return;
+        }
+        entries.put(abs, probed);
+        thumbnails.remove(abs);
+        pendingThumbnails.add(abs);
+    }
+
+    private void remove(@Nonnull Path path) {
+        entries.keySet().removeIf(p -> p.startsWith(path));
+        thumbnails.keySet().removeIf(p -> p.startsWith(path));
+    }
+
+    private void renderNextThumbnail() {
+        Path path = pendingThumbnails.poll();
+        if (path == null || !entries.containsKey(path)) return;
+        try {
+            Thumbnail.Key key = Thumbnail.keyFor(path, Channel.LUMINANCE, false, false);
+            Thumbnail t = Thumbnail.render(key);
+            if (t != null) thumbnails.put(path, new CachedThumbnail(key, new SoftReference<>(t)));
+        } catch (IOException | RuntimeException ignored) {
+            // Thumbnail is optional – the page renders one on demand
+        }
+    }
+
+    // ── Header probing ────────────────────────────────────────────────────────
+
+    @Nullable
+    private static Entry probe(@Nonnull Path path, long size, long modified) {
+        String ext = extensionOf(path.getFileName().toString().toLowerCase(Locale.ROOT));
+        if (ext.equals(".f32") || ext.equals(".f16")) {
+            int bytesPer = ext.equals(".f16") ? 2 : 4;
+            long count = size / bytesPer;
+            int side = (int) Math.round(Math.sqrt(count));
+            if (side == 0 || (long) side * side != count || size % bytesPer != 0) return null;
+            return new Entry(path, size, modified, side, side, ext.substring(1).toUpperCase(Locale.ROOT), bytesPer * 8, false);
+        }
+        if (ext.equals(".gz") || ext.equals(".deflate")) {
+            // Deflate streams are inflated once to size them – fine here, off the world thread
+            try {
+                CompressedRawSource raw = CompressedRawSource.probe(path);
+                if (raw == null) return null;
+                String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+                boolean half = name.contains(".f16.");
+                return new Entry(path, size, modified, raw.width(), raw.height(),
+                        (half ? "F16" : "F32") + ext.toUpperCase(Locale.ROOT), half ? 16 : 32, raw.normalized());
+            } catch (IOException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(path.toFile())) {
+            if (stream == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int w = reader.getWidth(0), h = reader.getHeight(0);
+                ImageTypeSpecifier type = reader.getRawImageType(0);
+                if (type == null) {
+                    Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+                    type = types.hasNext() ? types.next() : null;
+                }
+                int bits = type != null ? type.getColorModel().getComponentSize(0) : 8;
+                return new Entry(path, size, modified, w, h, reader.getFormatName().toUpperCase(Locale.ROOT), bits, true);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nonnull
+    private static String extensionOf(@Nonnull String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot);
+    }
+}
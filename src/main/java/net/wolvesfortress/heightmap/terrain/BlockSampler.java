@@ -0,0 +1,86 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * A block pattern compiled into a Walker/Vose alias table.
+ *
+ * <p>Compilation is O(n) once per import; each draw is O(1) – one bucket pick and one threshold
+ * compare – regardless of how many entries the pattern has. Draws take the random bits as an
+ * argument (see {@link CoordinateHash}), so a sampler is immutable and safe to share between threads.
+ */
+public final class BlockSampler {
+
+    /** Fixed-point scale of {@link #threshold}: a bucket keeps its own block when {@code low32 < threshold}. */
+    private static final long ONE = 1L << 32;
+
+    private final int[]  blockIds;
+    private final long[] threshold;
+    private final int[]  alias;
+
+    private BlockSampler(int[] blockIds, long[] threshold, int[] alias) {
+        this.blockIds  = blockIds;
+        this.threshold = threshold;
+        this.alias     = alias;
+    }
+
+    /** Compiles a parsed pattern. The list must not be empty. */
+    @Nonnull
+    public static BlockSampler compile(@Nonnull List<WeightedBlock> blocks) {
+        if (blocks.isEmpty()) throw new IllegalArgumentException("Empty block pattern");
+
+        int n = blocks.size();
+        int[] ids = new int[n];
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            ids[i] = blocks.get(i).blockId();
+            total += Math.max(0, blocks.get(i).weight());
+        }
+        if (n == 1 || total <= 0) {
+            return new BlockSampler(new int[]{ids[0]}, new long[]{ONE}, new int[]{0});
+        }
+
+        // Vose's method on weights scaled so the average bucket holds exactly 1.0
+        double[] scaled = new double[n];
+        for (int i = 0; i < n; i++) scaled[i] = Math.max(0, blocks.get(i).weight()) * (double) n / total;
+
+        long[] threshold = new long[n];
+        int[]  alias     = new int[n];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) (scaled[i] < 1.0 ? small : large).add(i);
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int s = small.poll(), l = large.poll();
+            threshold[s] = (long) (scaled[s] * ONE);
+            alias[s]     = l;
+            scaled[l]    = (scaled[l] + scaled[s]) - 1.0;
+            (scaled[l] < 1.0 ? small : large).add(l);
+        }
+        // Leftovers are 1.0 up to rounding error
+        while (!large.isEmpty()) { int i = large.poll(); threshold[i] = ONE; alias[i] = i; }
+        while (!small.isEmpty()) { int i = small.poll(); threshold[i] = ONE; alias[i] = i; }
+
+        return new BlockSampler(ids, threshold, alias);
+    }
+
+    /** Picks a block from 64 random bits: the high half chooses the bucket, the low half the coin flip. */
+    public int sample(long bits) {
+        int n = blockIds.length;
+        if (n == 1) return blockIds[0];
+        int bucket = (int) (((bits >>> 32) * n) >>> 32);
+        return (bits & 0xFFFFFFFFL) < threshold[bucket] ? blockIds[bucket] : blockIds[alias[bucket]];
+    }
+
+    /** Deterministic pick for a world-local coordinate. */
+    public int sample(long seed, int x, int y, int z) {
+        return blockIds.length == 1 ? blockIds[0] : sample(CoordinateHash.hash(seed, x, y, z));
+    }
+
+    /** The first block of the pattern, used where a single representative block is needed. */
+    public int primaryBlock() {
+        return blockIds[0];
+    }
+}
@@ -0,0 +1,7 @@
+package net.wolvesfortress.heightmap.terrain;
+
+/** Receives generated blocks in output-grid local coordinates. */
+@FunctionalInterface
+public interface BlockSink {
+    void accept(int x, int y, int z, int blockId);
+}
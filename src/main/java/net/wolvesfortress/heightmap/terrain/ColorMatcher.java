@@ -0,0 +1,7 @@
+package net.wolvesfortress.heightmap.terrain;
+
+/** Maps an RGB colour to the closest block id, or {@code <= 0} if there is none. */
+@FunctionalInterface
+public interface ColorMatcher {
+    int closestBlock(int r, int g, int b);
+}
@@ -0,0 +1,60 @@
+package net.wolvesfortress.heightmap.terrain;
+
+/**
+ * Stateless, seeded per-coordinate randomness.
+ *
+ * <p>Every value is a pure function of {@code (seed, x, y, z)}, so the result never depends on
+ * evaluation order or on how many threads share the work. Mixing follows the SplitMix64
+ * finaliser (the same one {@link java.util.SplittableRandom} uses).
+ */
+public final class CoordinateHash {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private CoordinateHash() {}
+
+    /** 64 well-mixed bits for the given coordinate. */
+    public static long hash(long seed, int x, int y, int z) {
+        long h = seed;
+        h = mix64(h + GOLDEN_GAMMA + x);
+        h = mix64(h + GOLDEN_GAMMA + y);
+        h = mix64(h + GOLDEN_GAMMA + z);
+        return h;
+    }
+
+    /** 64 well-mixed bits for an (x,z) column. */
+    public static long hash(long seed, int x, int z) {
+        return hash(seed, x, 0, z);
+    }
+
+    /** Parses a user-entered seed: plain integers are used verbatim, anything else is hashed. */
+    public static long parseSeed(String text) {
+        String s = text.trim();
+        if (s.isEmpty()) return 0L;
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            long h = 1125899906842597L;
+            for (int i = 0; i < s.length(); i++) h = 31 * h + s.charAt(i);
+            return mix64(h);
+        }
+    }
+
+    /** Folds {@code value} into the running hash {@code h}; chain calls to hash several fields. */
+    public static long combine(long h, long value) {
+        return mix64(h + GOLDEN_GAMMA + value);
+    }
+
+    /** Folds the content of {@code text} (length first, then every char) into the running hash {@code h}. */
+    public static long combine(long h, String text) {
+        h = combine(h, text.length());
+        for (int i = 0; i < text.length(); i++) h = combine(h, text.charAt(i));
+        return h;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
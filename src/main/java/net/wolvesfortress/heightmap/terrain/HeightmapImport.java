@@ -0,0 +1,352 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import net.wolvesfortress.heightmap.heightfield.ArrayHeightSource;
+import net.wolvesfortress.heightmap.heightfield.Channel;
+import net.wolvesfortress.heightmap.heightfield.ColormapResampler;
+import net.wolvesfortress.heightmap.heightfield.CompressedRawSource;
+import net.wolvesfortress.heightmap.heightfield.Crop;
+import net.wolvesfortress.heightmap.heightfield.HeightPipeline;
+import net.wolvesfortress.heightmap.heightfield.HeightSource;
+import net.wolvesfortress.heightmap.heightfield.ImageHeightSource;
+import net.wolvesfortress.heightmap.heightfield.NormalIntegrator;
+import net.wolvesfortress.heightmap.heightfield.PngHeightSource;
+import net.wolvesfortress.heightmap.heightfield.RawFloatSource;
+import net.wolvesfortress.heightmap.heightfield.TiledDataset;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * The server-independent body of a heightmap import: open the source, run the
+ * {@link HeightPipeline}, resample the colormap, generate tiles (reusing cached ones, see
+ * {@link ImportCache}), fill the selection and hand it, or an outline proxy of it, to the client.
+ *
+ * <p>The import page runs this on the builder-tools queue with the server's clipboard as the
+ * {@link Target}; the load-test harness runs it with stand-ins.
+ */
+public final class HeightmapImport {
+
+    /** Selections with at least this many blocks are previewed on the client as an outline. */
+    public static final long LOD_THRESHOLD = 1_000_000;
+    /** Surface columns in the outline preview. */
+    public static final long LOD_SURFACE_BUDGET = 65_536;
+
+    public enum Origin {
+        BOTTOM_FRONT_LEFT, BOTTOM_CENTER, CENTER, TOP_CENTER
+    }
+
+    /**
+     * Everything an import reads, captured when it is started.
+     *
+     * @param colormap       COLORMAP / NORMALMAP only; null for none
+     * @param regionX        window into the source, see {@link Crop#clip}; width/height 0 = to the edge
+     * @param nodata         raw inputs: value to mask, or null for none
+     * @param shellThickness 0 for solid columns, see {@link TerrainGenerator}
+     * @param deltaOnly      send only the blocks that changed since the last import of this file
+     * @param blockPattern   the pattern {@code sampler} was compiled from (hashed, not parsed)
+     * @param materialRules  the rules {@code rules} were compiled from (hashed, not parsed)
+     */
+    public record Settings(@Nonnull Path heightmap, @Nullable Path colormap,
+                           @Nonnull ImportMode mode, @Nonnull Channel channel,
+                           int regionX, int regionZ, int regionW, int regionH,
+                           boolean invert, boolean smooth, @Nullable Float nodata, double clipLow, double clipHigh,
+                           int maxSize, int heightScale, int shellThickness, long seed,
+                           boolean dither, boolean deltaOnly, boolean lodPreview, @Nonnull Origin origin,
+                           @Nonnull String blockPattern, @Nonnull String materialRules) {
+
+        /**
+         * Hash of the settings that change generation without showing up in the tile hashes.
+         * A re-import only reuses tiles from a previous import with the same settings hash.
+         */
+        public long hash() {
+            long h = CoordinateHash.combine(seed, mode.ordinal());
+            h = CoordinateHash.combine(h, heightScale);
+            h = CoordinateHash.combine(h, blockPattern);
+            h = CoordinateHash.combine(h, materialRules);
+            return CoordinateHash.combine(h, shellThickness);
+        }
+    }
+
+    /**
+     * Where the blocks go: the server's clipboard, or a stand-in.
+     *
+     * @param <S> the selection type
+     */
+    public interface Target<S> {
+        /** An empty selection at the origin, presized for {@code capacity} blocks. */
+        @Nonnull S newSelection(int capacity);
+
+        void addBlock(@Nonnull S selection, int x, int y, int z, int blockId);
+
+        /** The selection's bounds after the origin offset, both corners inclusive. */
+        void setArea(@Nonnull S selection, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+        void setSelection(@Nonnull S selection);
+
+        void sendSelectionToClient();
+    }
+
+    /**
+     * What an import produced.
+     *
+     * @param blocks    blocks in the selection (only the changed ones if {@code deltaOnly})
+     * @param deltaOnly true if a previous import was reused and only the changes were selected
+     * @param outline   true if the client was sent an outline proxy instead of the selection
+     */
+    public record Result(long blocks, int changedTiles, int tiles, int sizeX, int sizeY, int sizeZ,
+                         boolean deltaOnly, boolean outline) {}
+
+    private HeightmapImport() {}
+
+    /**
+     * Runs the import on the calling thread; tiles are generated on the common pool.
+     *
+     * @param colorMatcher colour → block lookup for colormaps; null if none is available
+     * @param status       progress messages (called from pool threads, often – throttle what is shown)
+     * @throws IllegalArgumentException with a user-facing message for an unreadable source, or an
+     *                                  unusable dataset or region
+     * @throws IOException if the source fails while it is read
+     */
+    @Nonnull
+    public static <S> Result run(@Nonnull Settings settings, @Nonnull BlockSampler sampler,
+                                 @Nonnull MaterialRules rules, @Nullable ColorMatcher colorMatcher,
+                                 @Nonnull Target<S> target, @Nonnull Consumer<String> status) throws IOException {
+        status.accept("Reading heightmap…");
+        int[] region = {settings.regionX(), settings.regionZ(), settings.regionW(), settings.regionH()};
+
+        // 1) Open the height source lazily – nothing is decoded per pixel yet
+        //    (NORMALMAP integrates the normal field instead of reading a channel)
+        HeightSource source = openHeightSource(settings.heightmap(), settings.channel(), settings.mode(), region);
+        if (source == null) {
+            throw new IllegalArgumentException("Unable to read heightmap (unsupported format or corrupted).");
+        }
+
+        // 2) normalise → invert → optional 3×3 smooth → downscale, evaluated as one
+        //    fused row-by-row pass that only touches the source rows it samples
+        HeightPipeline pipeline = HeightPipeline.of(source)
+                .invert(settings.invert())
+                .blur(settings.smooth())
+                .nodata(settings.nodata())
+                .clip(settings.clipLow(), settings.clipHigh())
+                .fitWithin(settings.maxSize());
+        float[] grid = pipeline.evaluate();
+        int W = pipeline.outputWidth(), H = pipeline.outputHeight();
+
+        // 3) Optional colormap for COLORMAP / NORMALMAP modes
+        BufferedImage colormapImage = null;
+        if ((settings.mode() == ImportMode.COLORMAP || settings.mode() == ImportMode.NORMALMAP)
+                && settings.colormap() != null && colorMatcher != null) {
+            // The heights' window, scaled to the colormap's resolution: the colormap
+            // covers the whole source, whatever its size
+            Header full = readFullHeader(settings.heightmap(), settings.channel());
+            if (full == null) {
+                throw new IllegalArgumentException("Unable to read heightmap (unsupported format or corrupted).");
+            }
+            Crop window = Crop.clip(region[0], region[1], region[2], region[3], full.width(), full.height(), "source");
+            try {
+                colormapImage = ImageHeightSource.readMatching(settings.colormap(), window, full.width(), full.height());
+            } catch (IllegalArgumentException e) {
+                throw e;   // window covers no colormap pixel
+            } catch (Exception ignored) { /* unreadable colormap – use block pattern */ }
+        }
+
+        // 4) Area-average the colormap onto the output grid, optionally dithered
+        int[] cmGrid = null;
+        if (colormapImage != null) {
+            cmGrid = ColormapResampler.resample(colormapImage, W, H);
+            if (settings.dither()) ColormapResampler.ditherOrdered(cmGrid, W, H);
+        }
+
+        // 5) Block generation input
+        TerrainGenerator generator = new TerrainGenerator(settings.mode(), W, H, settings.heightScale(), grid,
+                cmGrid, colorMatcher, sampler, rules, settings.seed(), settings.shellThickness());
+        int sizeX = W;
+        int sizeY = generator.sizeY();
+        int sizeZ = H;
+
+        // 6) Regenerate only the tiles whose inputs changed since the last import of this file
+        long settingsHash = settings.hash();
+        String cacheKey = settings.heightmap().toAbsolutePath().normalize().toString();
+        ImportCache.Snapshot previous = ImportCache.get(cacheKey);
+        if (previous != null && !previous.compatibleWith(settingsHash, sizeX, sizeZ, sizeY)) previous = null;
+        final ImportCache.Snapshot prev = previous;
+
+        long[] tileHashes = generator.tileHashes();
+        TileBlocks[] tiles = new TileBlocks[tileHashes.length];
+        boolean[] changed = new boolean[tileHashes.length];
+        AtomicInteger tilesDone = new AtomicInteger();
+        IntStream.range(0, tiles.length).parallel().forEach(t -> {
+            if (prev != null && prev.tileHashes()[t] == tileHashes[t]) {
+                tiles[t] = prev.tiles()[t];
+            } else {
+                tiles[t]   = generator.generateTile(t);
+                changed[t] = true;
+            }
+            status.accept(String.format("Generating terrain… %d/%d tiles", tilesDone.incrementAndGet(), tiles.length));
+        });
+        ImportCache.put(cacheKey, new ImportCache.Snapshot(settingsHash, sizeX, sizeZ, sizeY, tileHashes, tiles));
+
+        int changedTiles = 0;
+        for (boolean c : changed) if (c) changedTiles++;
+
+        // 7) Build the block selection – either everything, or only what changed
+        boolean deltaOnly = settings.deltaOnly() && prev != null;
+        long capacity = 0;
+        for (int t = 0; t < tiles.length; t++) {
+            if (!deltaOnly || changed[t]) capacity += tiles[t].blockCount();
+        }
+        S selection = target.newSelection((int) Math.min(Integer.MAX_VALUE - 8, capacity));
+
+        long[] count = new long[1];
+        BlockSink sink = (x, y, z, id) -> { target.addBlock(selection, x, y, z, id); count[0]++; };
+        for (int t = 0; t < tiles.length; t++) {
+            if (!deltaOnly)      tiles[t].forEachBlock(sink);
+            else if (changed[t]) TileBlocks.diff(prev.tiles()[t], tiles[t], sizeY, sink);
+        }
+        long blockCount = count[0];
+
+        // 8) Apply origin offset
+        int offX = 0, offY = 0, offZ = 0;
+        switch (settings.origin()) {
+            case BOTTOM_FRONT_LEFT -> { /* 0,0,0 */ }
+            case BOTTOM_CENTER     -> { offX = -sizeX / 2; offZ = -sizeZ / 2; }
+            case CENTER            -> { offX = -sizeX / 2; offY = -sizeY / 2; offZ = -sizeZ / 2; }
+            case TOP_CENTER        -> { offX = -sizeX / 2; offY = -sizeY;      offZ = -sizeZ / 2; }
+        }
+        int minX = offX, minY = offY, minZ = offZ;
+        int maxX = sizeX - 1 + offX, maxY = sizeY - 1 + offY, maxZ = sizeZ - 1 + offZ;
+        target.setArea(selection, minX, minY, minZ, maxX, maxY, maxZ);
+
+        // 9) Send the selection to the client – large ones only as an outline proxy;
+        //    the full selection is kept server-side and is what the paste applies
+        boolean outline = settings.lodPreview() && blockCount >= LOD_THRESHOLD;
+        if (outline) {
+            int stride = PreviewProxy.strideFor(sizeX, sizeZ, LOD_SURFACE_BUDGET);
+            S proxy = target.newSelection((int) PreviewProxy.capacity(sizeX, sizeY, sizeZ, stride));
+            PreviewProxy.build(tiles, sizeX, sizeY, sizeZ, stride, sampler.primaryBlock(),
+                    (x, y, z, id) -> target.addBlock(proxy, x, y, z, id));
+            target.setArea(proxy, minX, minY, minZ, maxX, maxY, maxZ);
+            target.setSelection(proxy);
+            target.sendSelectionToClient();
+        }
+        target.setSelection(selection);
+        if (!outline) target.sendSelectionToClient();
+
+        return new Result(blockCount, changedTiles, tiles.length, sizeX, sizeY, sizeZ, deltaOnly, outline);
+    }
+
+    // ── Height-data loading ────────────────────────────────────────────────────
+
+    /** Size of a heightmap file and whether its heights are already normalised (false for raw floats). */
+    public record Header(int width, int height, boolean normalized) {}
+
+    /** Fast header read – raw files are probed, images go through an ImageIO reader; no pixel decoding. */
+    @Nullable
+    public static Header readHeader(@Nonnull Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+
+        // Compressed raw floats: size from the gzip trailer, or one counting pass for deflate
+        if (CompressedRawSource.isCompressed(name)) {
+            try {
+                CompressedRawSource raw = CompressedRawSource.probe(path);
+                if (raw != null) return new Header(raw.width(), raw.height(), raw.normalized());
+            } catch (Exception ignored) {}
+            return null;
+        }
+
+        // Raw float files: square assumed, derive from byte count
+        if (name.endsWith(".f32") || name.endsWith(".f16")) {
+            try {
+                RawFloatSource raw = RawFloatSource.probe(path, name.endsWith(".f16"));
+                if (raw != null) return new Header(raw.width(), raw.height(), raw.normalized());
+            } catch (Exception ignored) {}
+            return null;
+        }
+
+        // Standard image formats — use ImageReader to avoid full decode
+        try (var stream = ImageIO.createImageInputStream(path.toFile())) {
+            if (stream == null) return null;
+            var readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) return null;
+            var reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                return new Header(reader.getWidth(0), reader.getHeight(0), true);
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    /** Like {@link #readHeader}, but also sizes tiled datasets (in dataset pixels). */
+    @Nullable
+    private static Header readFullHeader(@Nonnull Path path, @Nonnull Channel channel) {
+        if (!TiledDataset.isDataset(path)) return readHeader(path);
+        try {
+            TiledDataset dataset = TiledDataset.open(path, channel);
+            return new Header(dataset.fullWidth(), dataset.fullHeight(), dataset.normalized());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens the file as a lazily evaluated {@link HeightSource}.
+     * Supports: standard images (8/16-bit), raw .f32 and .f16, and tiled datasets (a directory or
+     * manifest, see {@link TiledDataset}); in NORMALMAP mode images are integrated from their
+     * normals first (see {@link NormalIntegrator}).
+     *
+     * <p>Only the {@code region} window is read: images decode just that rectangle, raw files
+     * read just its byte ranges, and datasets load just the tiles under it.
+     *
+     * @param region {@code x, z, width, height} of the window; width/height 0 = to the edge
+     * @throws IllegalArgumentException with a user-facing message for an unusable dataset or region
+     */
+    @Nullable
+    private static HeightSource openHeightSource(@Nonnull Path path, @Nonnull Channel channel,
+                                                 @Nonnull ImportMode mode, @Nonnull int[] region) {
+        String name = path.getFileName().toString().toLowerCase();
+        try {
+            // Datasets are stitched from plain height tiles in every mode
+            if (TiledDataset.isDataset(path)) {
+                return TiledDataset.open(path, channel).region(region[0], region[1], region[2], region[3]);
+            }
+            // Raw float files carry no normals, so they are read as plain heights in every mode
+            if (name.endsWith(".f32") || name.endsWith(".f16")) {
+                RawFloatSource raw = RawFloatSource.probe(path, name.endsWith(".f16"));
+                return raw != null ? raw.crop(region[0], region[1], region[2], region[3]) : null;
+            }
+            if (CompressedRawSource.isCompressed(name)) {
+                CompressedRawSource raw = CompressedRawSource.probe(path);
+                return raw != null ? raw.crop(region[0], region[1], region[2], region[3]) : null;
+            }
+
+            // PNG heights are decoded straight into rows; interlaced files fall through to ImageIO
+            if (name.endsWith(".png") && mode != ImportMode.NORMALMAP) {
+                PngHeightSource png = PngHeightSource.probe(path, channel);
+                if (png != null) return png.crop(region[0], region[1], region[2], region[3]);
+            }
+
+            BufferedImage img = ImageHeightSource.read(path, region[0], region[1], region[2], region[3]);
+            if (img == null) return null;
+            if (mode != ImportMode.NORMALMAP) return new ImageHeightSource(img, channel);
+
+            int W = img.getWidth(), H = img.getHeight();
+            int[] argb = img.getRGB(0, 0, W, H, null, 0, W);
+            return new ArrayHeightSource(NormalIntegrator.integrate(argb, W, H), W, H, true);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
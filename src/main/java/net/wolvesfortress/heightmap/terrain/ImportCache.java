@@ -0,0 +1,55 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the tiles of the most recent imports, keyed by source path, so re-importing an
+ * edited heightmap only regenerates the tiles whose inputs changed.
+ *
+ * <p>Only a few snapshots are kept (least recently used are dropped); tiles are stored as
+ * column runs, see {@link TileBlocks}.
+ */
+public final class ImportCache {
+
+    private static final int MAX_ENTRIES = 4;
+
+    private static final Map<String, Snapshot> SNAPSHOTS = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private ImportCache() {}
+
+    /**
+     * The result of one import.
+     *
+     * @param settingsHash hash of every setting that changes generation but is not part of the tile hashes
+     */
+    public record Snapshot(long settingsHash, int width, int depth, int sizeY,
+                           @Nonnull long[] tileHashes, @Nonnull TileBlocks[] tiles) {
+
+        /** True if tiles of this snapshot can stand in for tiles of an import with these parameters. */
+        public boolean compatibleWith(long settingsHash, int width, int depth, int sizeY) {
+            return this.settingsHash == settingsHash && this.width == width
+                    && this.depth == depth && this.sizeY == sizeY;
+        }
+    }
+
+    @Nullable
+    public static synchronized Snapshot get(@Nonnull String key) {
+        return SNAPSHOTS.get(key);
+    }
+
+    public static synchronized void put(@Nonnull String key, @Nonnull Snapshot snapshot) {
+        SNAPSHOTS.put(key, snapshot);
+    }
+
+    public static synchronized void clear() {
+        SNAPSHOTS.clear();
+    }
+}
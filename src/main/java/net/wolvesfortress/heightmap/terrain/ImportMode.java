@@ -0,0 +1,13 @@
+package net.wolvesfortress.heightmap.terrain;
+
+/** How an imported heightmap is turned into blocks. */
+public enum ImportMode {
+    /** Solid terrain column, height derived from pixel brightness. */
+    HEIGHTMAP,
+    /** Single surface block per column. */
+    SURFACE,
+    /** Flat image → block-colour match (like ImageImportPage). */
+    COLORMAP,
+    /** Normal-map image integrated into a surface; colour used for block match. */
+    NORMALMAP
+}
@@ -0,0 +1,229 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Elevation / slope / depth material rules, compiled into a single lookup table.
+ *
+ * <h3>Syntax</h3>
+ * Rules are separated by {@code ;} or new lines and are tried top to bottom – the first match wins:
+ * <pre>
+ *   Rock_Stone if slope&gt;=4;
+ *   Soil_Snow if height&gt;=85% and depth=0;
+ *   90%Soil_Grass,10%Soil_Dirt if depth=0;
+ *   Soil_Dirt if depth&lt;=3;
+ *   Rock_Stone
+ * </pre>
+ * <ul>
+ *   <li>{@code height} – surface height of the column in blocks, or in percent of the height scale</li>
+ *   <li>{@code slope}  – largest height difference to the four neighbouring columns</li>
+ *   <li>{@code depth}  – blocks below the surface block (the surface block itself is depth 0)</li>
+ * </ul>
+ * Each condition takes {@code < <= > >= =} or an inclusive range {@code key=a..b}.
+ *
+ * <p>All rules are resolved up front into a {@code [height][slope][depth]} table of rule indices,
+ * so picking a material during generation is one array read plus one alias-table draw.
+ */
+public final class MaterialRules {
+
+    /** Slopes at or above this value share the last bucket. */
+    public static final int MAX_SLOPE = 16;
+    /** Depths at or above this value share the last bucket. */
+    public static final int MAX_DEPTH = 32;
+
+    private static final int SLOPE_BUCKETS = MAX_SLOPE + 1;
+    private static final int DEPTH_BUCKETS = MAX_DEPTH + 1;
+    private static final int MAX_RULES     = 127;
+    private static final int MAX_HEIGHT_LITERAL = 100_000;
+
+    private static final MaterialRules EMPTY = new MaterialRules(new BlockSampler[0], new byte[0], 0);
+
+    private final BlockSampler[] samplers;
+    private final byte[] table;
+    private final int maxHeight;
+
+    private MaterialRules(BlockSampler[] samplers, byte[] table, int maxHeight) {
+        this.samplers  = samplers;
+        this.table     = table;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Parses and compiles a rule list.
+     *
+     * @param text          rule source; blank means "no rules"
+     * @param heightScale   import height scale, used for percentages and the table size
+     * @param patternParser block-pattern parser; returns null for an invalid pattern
+     * @throws IllegalArgumentException with a user-facing message if the rules cannot be parsed
+     */
+    @Nonnull
+    public static MaterialRules compile(@Nonnull String text,
+                                        int heightScale,
+                                        @Nonnull Function<String, List<WeightedBlock>> patternParser) {
+        List<Rule> rules = new ArrayList<>();
+        for (String line : text.split("[;\\n]")) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            rules.add(parseRule(line, heightScale, patternParser));
+        }
+        if (rules.isEmpty()) return EMPTY;
+        if (rules.size() > MAX_RULES) throw new IllegalArgumentException("Too many rules (max " + MAX_RULES + ")");
+
+        BlockSampler[] samplers = new BlockSampler[rules.size()];
+        for (int i = 0; i < samplers.length; i++) samplers[i] = rules.get(i).sampler;
+
+        int heights = heightScale + 1;
+        byte[] table = new byte[heights * SLOPE_BUCKETS * DEPTH_BUCKETS];
+        Arrays.fill(table, (byte) -1);
+        int idx = 0;
+        for (int h = 0; h < heights; h++) {
+            for (int s = 0; s < SLOPE_BUCKETS; s++) {
+                for (int d = 0; d < DEPTH_BUCKETS; d++, idx++) {
+                    for (int r = 0; r < rules.size(); r++) {
+                        if (rules.get(r).matches(h, s, d)) { table[idx] = (byte) r; break; }
+                    }
+                }
+            }
+        }
+        return new MaterialRules(samplers, table, heightScale);
+    }
+
+    public boolean isEmpty() {
+        return samplers.length == 0;
+    }
+
+    /**
+     * Resolves the block at depth {@code depth} of a column whose surface is {@code height} blocks
+     * tall and whose steepest neighbour step is {@code slope}.
+     *
+     * @return the block id, or -1 if no rule matches
+     */
+    public int resolve(int height, int slope, int depth, long seed, int x, int y, int z) {
+        if (samplers.length == 0) return -1;
+        int h = Math.min(Math.max(height, 0), maxHeight);
+        int s = Math.min(slope, MAX_SLOPE);
+        int d = Math.min(depth, MAX_DEPTH);
+        int rule = table[(h * SLOPE_BUCKETS + s) * DEPTH_BUCKETS + d];
+        return rule < 0 ? -1 : samplers[rule].sample(seed, x, y, z);
+    }
+
+    // ── Parsing ───────────────────────────────────────────────────────────────
+
+    private record Rule(BlockSampler sampler, Range height, Range slope, Range depth) {
+        boolean matches(int h, int s, int d) {
+            return height.contains(h) && slope.contains(s) && depth.contains(d);
+        }
+    }
+
+    private record Range(int min, int max) {
+        static final Range ALL = new Range(Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        boolean contains(int v) { return v >= min && v <= max; }
+
+        Range intersect(Range o) { return new Range(Math.max(min, o.min), Math.min(max, o.max)); }
+    }
+
+    @Nonnull
+    private static Rule parseRule(@Nonnull String line, int heightScale,
+                                  @Nonnull Function<String, List<WeightedBlock>> patternParser) {
+        String patternText = line;
+        String condText    = null;
+        int ifIdx = indexOfKeyword(line, "if");
+        if (ifIdx >= 0) {
+            patternText = line.substring(0, ifIdx).trim();
+            condText    = line.substring(ifIdx + 2).trim();
+        }
+
+        List<WeightedBlock> blocks = patternParser.apply(patternText);
+        if (blocks == null) throw new IllegalArgumentException("Invalid block pattern in rule: " + patternText);
+
+        Range height = Range.ALL, slope = Range.ALL, depth = Range.ALL;
+        if (condText != null) {
+            if (condText.isEmpty()) throw new IllegalArgumentException("Missing condition after 'if': " + line);
+            for (String cond : condText.split("(?i)\\s+and\\s+|&")) {
+                cond = cond.trim().toLowerCase(Locale.ROOT);
+                if (cond.isEmpty()) continue;
+                if (cond.startsWith("height")) {
+                    height = height.intersect(parseCondition(cond, "height", heightScale, MAX_HEIGHT_LITERAL));
+                } else if (cond.startsWith("slope")) {
+                    slope = slope.intersect(parseCondition(cond, "slope", -1, MAX_SLOPE - 1));
+                } else if (cond.startsWith("depth")) {
+                    depth = depth.intersect(parseCondition(cond, "depth", -1, MAX_DEPTH - 1));
+                } else {
+                    throw new IllegalArgumentException("Unknown condition: " + cond);
+                }
+            }
+        }
+        return new Rule(BlockSampler.compile(blocks), height, slope, depth);
+    }
+
+    /** Finds a whole-word, case-insensitive keyword, or -1. */
+    private static int indexOfKeyword(@Nonnull String s, @Nonnull String word) {
+        String lower = s.toLowerCase(Locale.ROOT);
+        int from = 0;
+        while (true) {
+            int i = lower.indexOf(word, from);
+            if (i < 0) return -1;
+            int end = i + word.length();
+            boolean startOk = i == 0 || Character.isWhitespace(lower.charAt(i - 1));
+            boolean endOk   = end == lower.length() || Character.isWhitespace(lower.charAt(end));
+            if (startOk && endOk) return i;
+            from = end;
+        }
+    }
+
+    /**
+     * Parses {@code key<op>value} or {@code key=a..b}.
+     *
+     * @param percentOf  base for {@code %} values, or -1 if percentages are not allowed
+     * @param maxLiteral largest threshold the lookup table can distinguish (the last bucket
+     *                   stands for "this value or more", so it may only be reached by open ranges)
+     */
+    @Nonnull
+    private static Range parseCondition(@Nonnull String cond, @Nonnull String key, int percentOf, int maxLiteral) {
+        String rest = cond.substring(key.length()).replace(" ", "");
+        String op;
+        if (rest.startsWith("<=") || rest.startsWith(">=")) op = rest.substring(0, 2);
+        else if (rest.startsWith("<") || rest.startsWith(">") || rest.startsWith("=")) op = rest.substring(0, 1);
+        else throw new IllegalArgumentException("Expected <, <=, >, >= or = in: " + cond);
+        String value = rest.substring(op.length());
+
+        if (op.equals("=") && value.contains("..")) {
+            String[] parts = value.split("\\.\\.", 2);
+            int a = parseValue(parts[0], cond, percentOf, maxLiteral);
+            int b = parseValue(parts[1], cond, percentOf, maxLiteral);
+            return new Range(Math.min(a, b), Math.max(a, b));
+        }
+        int v = parseValue(value, cond, percentOf, maxLiteral);
+        return switch (op) {
+            case "<"  -> new Range(Integer.MIN_VALUE, v - 1);
+            case "<=" -> new Range(Integer.MIN_VALUE, v);
+            case ">"  -> new Range(v + 1, Integer.MAX_VALUE);
+            case ">=" -> new Range(v, Integer.MAX_VALUE);
+            default   -> new Range(v, v);
+        };
+    }
+
+    private static int parseValue(@Nullable String text, @Nonnull String cond, int percentOf, int maxLiteral) {
+        if (text == null || text.isEmpty()) throw new IllegalArgumentException("Missing value in: " + cond);
+        try {
+            int v;
+            if (text.endsWith("%")) {
+                if (percentOf < 0) throw new IllegalArgumentException("Percent values are only allowed for height: " + cond);
+                v = (int) Math.round(Double.parseDouble(text.substring(0, text.length() - 1)) / 100.0 * percentOf);
+            } else {
+                v = Integer.parseInt(text);
+            }
+            if (v > maxLiteral) throw new IllegalArgumentException("Value too large (max " + maxLiteral + "): " + cond);
+            return v;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in: " + cond);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A cheap stand-in for a huge selection: the twelve edges of its bounding box plus the surface
+ * sampled on a coarse grid.
+ *
+ * <p>The client only needs the proxy to position a paste, so it gets that instead of millions of
+ * blocks. The full selection stays on the server and is what actually gets pasted.
+ */
+public final class PreviewProxy {
+
+    private PreviewProxy() {}
+
+    /** Grid stride that keeps the sampled surface of a {@code sizeX × sizeZ} area within {@code budget} columns. */
+    public static int strideFor(int sizeX, int sizeZ, long budget) {
+        double ratio = (double) sizeX * sizeZ / Math.max(1, budget);
+        return Math.max(1, (int) Math.ceil(Math.sqrt(ratio)));
+    }
+
+    /** Upper bound on the blocks {@link #build} emits for the given stride. */
+    public static long capacity(int sizeX, int sizeY, int sizeZ, int stride) {
+        long surface = (long) ((sizeX + stride - 1) / stride) * ((sizeZ + stride - 1) / stride);
+        return surface + 4L * (sizeX + sizeY + sizeZ);
+    }
+
+    /**
+     * Emits the proxy in local coordinates {@code [0, size)}.
+     *
+     * @param edgeBlock block used to draw the bounding box edges
+     * @return number of blocks emitted (edge corners may be emitted more than once)
+     */
+    public static long build(@Nonnull TileBlocks[] tiles, int sizeX, int sizeY, int sizeZ,
+                             int stride, int edgeBlock, @Nonnull BlockSink sink) {
+        long emitted = 0;
+        for (TileBlocks tile : tiles) emitted += tile.forEachSurfaceBlock(stride, sink);
+
+        int mx = sizeX - 1, my = sizeY - 1, mz = sizeZ - 1;
+        for (int x = 0; x <= mx; x++) {
+            sink.accept(x, 0, 0, edgeBlock);  sink.accept(x, 0, mz, edgeBlock);
+            sink.accept(x, my, 0, edgeBlock); sink.accept(x, my, mz, edgeBlock);
+        }
+        for (int z = 0; z <= mz; z++) {
+            sink.accept(0, 0, z, edgeBlock);  sink.accept(mx, 0, z, edgeBlock);
+            sink.accept(0, my, z, edgeBlock); sink.accept(mx, my, z, edgeBlock);
+        }
+        for (int y = 0; y <= my; y++) {
+            sink.accept(0, y, 0, edgeBlock);  sink.accept(mx, y, 0, edgeBlock);
+            sink.accept(0, y, mz, edgeBlock); sink.accept(mx, y, mz, edgeBlock);
+        }
+        return emitted + 4L * (sizeX + sizeY + sizeZ);
+    }
+}
@@ -0,0 +1,192 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.stream.IntStream;
+
+/**
+ * Turns a resampled heightfield into blocks, one {@link #TILE}×{@link #TILE} tile at a time.
+ *
+ * <p>Tiles only read the shared input grids, and every random pick is a pure function of the
+ * seed and the coordinate, so tiles can be generated in any order and on any number of threads
+ * with identical results. The same property lets {@link #tileHash} decide whether a tile from a
+ * previous import can be reused.
+ */
+public final class TerrainGenerator {
+
+    /** Tile edge length in columns. */
+    public static final int TILE = 32;
+
+    private final ImportMode mode;
+    private final int width, depth, heightScale;
+    private final int[] surface;
+    @Nullable private final int[] colormap;
+    @Nullable private final ColorMatcher colorMatcher;
+    private final BlockSampler sampler;
+    private final MaterialRules rules;
+    private final long seed;
+    private final int shellThickness;
+    private final boolean useRules;
+
+    /**
+     * @param heights      normalised heights on the output grid, row-major {@code [z * width + x]}
+     * @param colormap     ARGB colours on the output grid, or null if no colormap is used
+     * @param colorMatcher colour → block lookup; required when {@code colormap} is given
+     * @param shellThickness HEIGHTMAP only: 0 fills columns solid from y=0, otherwise only blocks
+     *                       exposed to air are kept, plus at least this many blocks below the surface
+     */
+    public TerrainGenerator(@Nonnull ImportMode mode,
+                            int width, int depth, int heightScale,
+                            @Nonnull float[] heights,
+                            @Nullable int[] colormap,
+                            @Nullable ColorMatcher colorMatcher,
+                            @Nonnull BlockSampler sampler,
+                            @Nonnull MaterialRules rules,
+                            long seed,
+                            int shellThickness) {
+        this.mode         = mode;
+        this.width        = width;
+        this.depth        = depth;
+        this.heightScale  = heightScale;
+        this.colormap     = colormap;
+        this.colorMatcher = colorMatcher;
+        this.sampler      = sampler;
+        this.rules        = rules;
+        this.seed         = seed;
+        this.shellThickness = Math.max(0, shellThickness);
+        this.useRules     = !rules.isEmpty() && mode != ImportMode.COLORMAP && colormap == null;
+
+        this.surface = new int[width * depth];
+        for (int i = 0; i < surface.length; i++) {
+            surface[i] = Math.max(1, Math.round(heights[i] * heightScale));
+        }
+    }
+
+    public int tilesX()     { return (width + TILE - 1) / TILE; }
+    public int tilesZ()     { return (depth + TILE - 1) / TILE; }
+    public int tileCount()  { return tilesX() * tilesZ(); }
+
+    /** Height of the structure in blocks. */
+    public int sizeY() {
+        return mode == ImportMode.COLORMAP ? 1 : heightScale;
+    }
+
+    /**
+     * Hash of everything a tile's output depends on: the quantised surface of the tile plus a
+     * one-column halo (slope looks at neighbours) and the colormap colours of the tile.
+     */
+    public long tileHash(int tile) {
+        int x0 = (tile % tilesX()) * TILE, z0 = (tile / tilesX()) * TILE;
+        int x1 = Math.min(x0 + TILE, width), z1 = Math.min(z0 + TILE, depth);
+        long h = CoordinateHash.hash(seed, x0, z0);
+        for (int z = Math.max(0, z0 - 1); z < Math.min(depth, z1 + 1); z++) {
+            for (int x = Math.max(0, x0 - 1); x < Math.min(width, x1 + 1); x++) {
+                h = CoordinateHash.mix64(h ^ surface[z * width + x]) + 0x9E3779B97F4A7C15L;
+            }
+        }
+        if (colormap != null) {
+            for (int z = z0; z < z1; z++)
+                for (int x = x0; x < x1; x++)
+                    h = CoordinateHash.mix64(h ^ colormap[z * width + x]) + 0x9E3779B97F4A7C15L;
+        }
+        return h;
+    }
+
+    /** Hashes of all tiles, computed in parallel. */
+    @Nonnull
+    public long[] tileHashes() {
+        long[] out = new long[tileCount()];
+        IntStream.range(0, out.length).parallel().forEach(t -> out[t] = tileHash(t));
+        return out;
+    }
+
+    /** Generates the blocks of one tile (tiles are numbered row-major). */
+    @Nonnull
+    public TileBlocks generateTile(int tile) {
+        int x0 = (tile % tilesX()) * TILE, z0 = (tile / tilesX()) * TILE;
+        int tw = Math.min(TILE, width - x0), td = Math.min(TILE, depth - z0);
+        TileBlocks.Builder out = new TileBlocks.Builder(x0, z0, tw, td);
+
+        for (int z = z0; z < z0 + td; z++) {
+            for (int x = x0; x < x0 + tw; x++) {
+                int i = z * width + x;
+                int blockId = baseBlock(x, z);
+                if (blockId <= 0) { out.skipColumn(); continue; }
+
+                int colH  = surface[i];
+                int slope = useRules ? columnSlope(x, z) : 0;
+                switch (mode) {
+                    case HEIGHTMAP -> {
+                        // Stack of blocks up to computed height – from y=0, or in shell mode
+                        // from the lowest block still visible past the lowest neighbour
+                        int startY = shellThickness > 0
+                                ? Math.max(0, Math.min(lowestNeighbour(x, z), colH - shellThickness))
+                                : 0;
+                        out.beginColumn(startY);
+                        for (int y = startY; y < colH; y++) {
+                            int id = useRules ? rules.resolve(colH, slope, colH - 1 - y, seed, x, y, z) : -1;
+                            out.add(id > 0 ? id : blockId);
+                        }
+                        out.endColumn();
+                    }
+                    case SURFACE, NORMALMAP -> {
+                        // Single block at the surface height
+                        int y  = colH - 1;
+                        int id = useRules ? rules.resolve(colH, slope, 0, seed, x, y, z) : -1;
+                        out.beginColumn(y);
+                        out.add(id > 0 ? id : blockId);
+                        out.endColumn();
+                    }
+                    case COLORMAP -> {
+                        // Flat — height value not used; transparent colormap pixels are skipped
+                        int alpha = colormap != null ? (colormap[i] >>> 24) : 0xFF;
+                        if (alpha >= 128) {
+                            out.beginColumn(0);
+                            out.add(blockId);
+                            out.endColumn();
+                        } else {
+                            out.skipColumn();
+                        }
+                    }
+                }
+            }
+        }
+        return out.build();
+    }
+
+    /**
+     * Colormap match for the column, or a seeded pattern pick when there is no colormap or no
+     * block is close enough.
+     */
+    private int baseBlock(int x, int z) {
+        if (colormap != null && colorMatcher != null) {
+            int rgba = colormap[z * width + x];
+            int id = colorMatcher.closestBlock((rgba >> 16) & 0xFF, (rgba >> 8) & 0xFF, rgba & 0xFF);
+            if (id > 0) return id;
+        }
+        return sampler.sample(seed, x, 0, z);
+    }
+
+    /**
+     * Lowest surface among the four neighbours of {@code (x,z)}; outside the grid counts as 0,
+     * so the border walls of the structure stay closed.
+     */
+    private int lowestNeighbour(int x, int z) {
+        int low = Integer.MAX_VALUE;
+        low = Math.min(low, x > 0         ? surface[z * width + x - 1]   : 0);
+        low = Math.min(low, x < width - 1 ? surface[z * width + x + 1]   : 0);
+        low = Math.min(low, z > 0         ? surface[(z - 1) * width + x] : 0);
+        low = Math.min(low, z < depth - 1 ? surface[(z + 1) * width + x] : 0);
+        return low;
+    }
+
+    /** Largest height step from column {@code (x,z)} to any of its four in-bounds neighbours. */
+    private int columnSlope(int x, int z) {
+        int h = surface[z * width + x], slope = 0;
+        if (x > 0)         slope = Math.max(slope, Math.abs(h - surface[z * width + x - 1]));
+        if (x < width - 1) slope = Math.max(slope, Math.abs(h - surface[z * width + x + 1]));
+        if (z > 0)         slope = Math.max(slope, Math.abs(h - surface[(z - 1) * width + x]));
+        if (z < depth - 1) slope = Math.max(slope, Math.abs(h - surface[(z + 1) * width + x]));
+        return slope;
+    }
+}
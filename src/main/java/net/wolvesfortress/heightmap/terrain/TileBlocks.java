@@ -0,0 +1,181 @@
+package net.wolvesfortress.heightmap.terrain;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * The generated blocks of one tile, stored as vertical runs per column.
+ *
+ * <p>Layout of {@link #data} for each column (row-major within the tile):
+ * {@code startY, id0, len0, id1, len1, …}; a column without blocks has no entries.
+ * Solid columns collapse to a handful of ints, which keeps a whole import cheap enough to
+ * remember for delta re-imports.
+ */
+public final class TileBlocks {
+
+    /** Block id written where a block disappears between two imports. */
+    public static final int AIR = 0;
+
+    final int originX, originZ, width, depth;
+    private final int[] offsets;   // width*depth + 1 entries into data
+    private final int[] data;
+    private final long blockCount;
+
+    TileBlocks(int originX, int originZ, int width, int depth, int[] offsets, int[] data, long blockCount) {
+        this.originX    = originX;
+        this.originZ    = originZ;
+        this.width      = width;
+        this.depth      = depth;
+        this.offsets    = offsets;
+        this.data       = data;
+        this.blockCount = blockCount;
+    }
+
+    public long blockCount() {
+        return blockCount;
+    }
+
+    /** Emits every block of the tile. */
+    public void forEachBlock(@Nonnull BlockSink sink) {
+        for (int c = 0; c < width * depth; c++) {
+            int p = offsets[c], end = offsets[c + 1];
+            if (p == end) continue;
+            int x = originX + c % width, z = originZ + c / width;
+            int y = data[p++];
+            while (p < end) {
+                int id = data[p++], len = data[p++];
+                for (int i = 0; i < len; i++) sink.accept(x, y++, z, id);
+            }
+        }
+    }
+
+    /**
+     * Emits the topmost block of every column whose absolute {@code x} and {@code z} are both
+     * multiples of {@code stride}.
+     *
+     * @return number of blocks emitted
+     */
+    public long forEachSurfaceBlock(int stride, @Nonnull BlockSink sink) {
+        long emitted = 0;
+        for (int z = ceilTo(originZ, stride); z < originZ + depth; z += stride) {
+            for (int x = ceilTo(originX, stride); x < originX + width; x += stride) {
+                int c = (z - originZ) * width + (x - originX);
+                int p = offsets[c], end = offsets[c + 1];
+                if (p == end) continue;
+                int y = data[p++] - 1, id = 0;
+                while (p < end) { id = data[p++]; y += data[p++]; }
+                sink.accept(x, y, z, id);
+                emitted++;
+            }
+        }
+        return emitted;
+    }
+
+    private static int ceilTo(int v, int step) {
+        return (v + step - 1) / step * step;
+    }
+
+    /**
+     * Emits only what changed from {@code previous} to {@code current}: new or replaced blocks with
+     * their id, removed blocks as {@link #AIR}.
+     *
+     * @param maxY exclusive upper bound of y in both tiles
+     * @return number of blocks emitted
+     */
+    public static long diff(@Nonnull TileBlocks previous, @Nonnull TileBlocks current, int maxY, @Nonnull BlockSink sink) {
+        if (previous.width != current.width || previous.depth != current.depth
+                || previous.originX != current.originX || previous.originZ != current.originZ) {
+            throw new IllegalArgumentException("Tiles do not cover the same area");
+        }
+        int[] before = new int[maxY], after = new int[maxY];
+        long emitted = 0;
+        for (int c = 0; c < current.width * current.depth; c++) {
+            if (Arrays.equals(previous.data, previous.offsets[c], previous.offsets[c + 1],
+                              current.data,  current.offsets[c],  current.offsets[c + 1])) continue;
+
+            previous.expandColumn(c, before);
+            current.expandColumn(c, after);
+            int x = current.originX + c % current.width, z = current.originZ + c / current.width;
+            for (int y = 0; y < maxY; y++) {
+                if (before[y] == after[y]) continue;
+                if (after[y] > 0)       { sink.accept(x, y, z, after[y]); emitted++; }
+                else if (before[y] > 0) { sink.accept(x, y, z, AIR);      emitted++; }
+            }
+        }
+        return emitted;
+    }
+
+    private void expandColumn(int c, int[] out) {
+        Arrays.fill(out, 0);
+        int p = offsets[c], end = offsets[c + 1];
+        if (p == end) return;
+        int y = data[p++];
+        while (p < end) {
+            int id = data[p++], len = data[p++];
+            for (int i = 0; i < len && y < out.length; i++) out[y++] = id;
+        }
+    }
+
+    // ── Builder ───────────────────────────────────────────────────────────────
+
+    /** Collects runs column by column, in row-major order. */
+    static final class Builder {
+        private final int originX, originZ, width, depth;
+        private final int[] offsets;
+        private int[] data = new int[64];
+        private int size, column;
+        private long blocks;
+        private int runId = -1, runLen;
+
+        Builder(int originX, int originZ, int width, int depth) {
+            this.originX = originX;
+            this.originZ = originZ;
+            this.width   = width;
+            this.depth   = depth;
+            this.offsets = new int[width * depth + 1];
+        }
+
+        /** Starts the next column; its first block will be placed at {@code startY}. */
+        void beginColumn(int startY) {
+            offsets[column] = size;
+            push(startY);
+            runId = -1; runLen = 0;
+        }
+
+        /** Appends the next block upwards in the current column. */
+        void add(int blockId) {
+            if (blockId == runId) { runLen++; }
+            else { flushRun(); runId = blockId; runLen = 1; }
+            blocks++;
+        }
+
+        /** Finishes the current column (which may be left without blocks). */
+        void endColumn() {
+            flushRun();
+            if (size == offsets[column] + 1) size--;    // only startY was written: drop it
+            column++;
+            offsets[column] = size;
+        }
+
+        /** Records an empty column. */
+        void skipColumn() {
+            offsets[column] = size;
+            column++;
+            offsets[column] = size;
+        }
+
+        TileBlocks build() {
+            return new TileBlocks(originX, originZ, width, depth, offsets, Arrays.copyOf(data, size), blocks);
+        }
+
+        private void flushRun() {
+            if (runLen > 0) { push(runId); push(runLen); }
+            runLen = 0;
+        }
+
+        private void push(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+    }
+}
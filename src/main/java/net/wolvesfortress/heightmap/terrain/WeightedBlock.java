@@ -0,0 +1,9 @@
+package net.wolvesfortress.heightmap.terrain;
+
+/**
+ * One entry of a block pattern such as {@code 70%Rock_Stone,30%Rock_Basalt}.
+ *
+ * @param blockId resolved block-type index
+ * @param weight  relative weight (entries {@code <= 0} are never picked)
+ */
+public record WeightedBlock(int blockId, int weight) {}
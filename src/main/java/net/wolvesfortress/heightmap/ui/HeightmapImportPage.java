@@ -29,20 +29,41 @@ import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import net.wolvesfortress.heightmap.heightfield.Channel;
+import net.wolvesfortress.heightmap.heightfield.CompressedRawSource;
+import net.wolvesfortress.heightmap.heightfield.Crop;
+import net.wolvesfortress.heightmap.heightfield.PngHeightSource;
+import net.wolvesfortress.heightmap.heightfield.Thumbnail;
+import net.wolvesfortress.heightmap.heightfield.TiledDataset;
+import net.wolvesfortress.heightmap.index.HeightmapIndex;
+import net.wolvesfortress.heightmap.terrain.BlockSampler;
+import net.wolvesfortress.heightmap.terrain.CoordinateHash;
+import net.wolvesfortress.heightmap.terrain.HeightmapImport;
+import net.wolvesfortress.heightmap.terrain.HeightmapImport.Origin;
+import net.wolvesfortress.heightmap.terrain.ImportMode;
+import net.wolvesfortress.heightmap.terrain.MaterialRules;
+import net.wolvesfortress.heightmap.terrain.WeightedBlock;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -54,9 +75,13 @@ import java.util.logging.Level;
  * <h3>Supported formats</h3>
  * <ul>
  *   <li>8-bit grayscale or RGB (PNG, BMP, JPEG – any format Java ImageIO reads)</li>
- *   <li>16-bit grayscale PNG (sampled via red-channel high byte)</li>
+ *   <li>16-bit grayscale PNG (full precision, via {@link PngHeightSource})</li>
  *   <li>Raw 32-bit float little-endian binary ({@code .f32}) – single-channel, width×height</li>
  *   <li>Raw 16-bit float little-endian binary ({@code .f16}) – single-channel, width×height</li>
+ *   <li>Compressed raw floats ({@code .f32.gz}, {@code .f16.gz}, {@code .deflate}) – inflated as a stream
+ *       (see {@link CompressedRawSource})</li>
+ *   <li>Tiled datasets – a directory of {@code *_x<col>_z<row>} tiles or a {@code .json} manifest,
+ *       imported by region (see {@link TiledDataset})</li>
  * </ul>
  *
  * <h3>Import modes</h3>
@@ -64,8 +89,11 @@ import java.util.logging.Level;
  *   <li>{@code HEIGHTMAP} – stacked column of blocks, one per unit of height</li>
  *   <li>{@code SURFACE} – single block per (X,Z) column at the derived Y level (hollow)</li>
  *   <li>{@code COLORMAP} – flat image-to-block colour match, like ImageImportPage (ignores height)</li>
- *   <li>{@code NORMALMAP} – derives a surface shape from a normal-map image</li>
+ *   <li>{@code NORMALMAP} – integrates a normal-map image into a surface (Frankot–Chellappa)</li>
  * </ul>
+ *
+ * <p>The page validates and captures the settings; the import itself is {@link HeightmapImport},
+ * run on the builder-tools queue with the player's clipboard as its target.
  */
 public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImportPage.PageData> {
 
@@ -76,6 +104,62 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
     private static final int MAX_HEIGHT = 320;
     private static final int DEFAULT_MAX_SIZE = 256;
     private static final int MAX_MAX_SIZE = 1024;
+    private static final int DEFAULT_SHELL_THICKNESS = 2;
+    private static final int MAX_SHELL_THICKNESS = 64;
+    private static final int THUMBNAIL_PX = 192;
+    private static final int MAX_SEARCH_RESULTS = 200;
+    /** Thumbnail drawn in each indexed list row: side in pixels and in cells. */
+    private static final int ROW_THUMB_PX    = 24;
+    private static final int ROW_THUMB_CELLS = 4;
+    /** Status and progress updates are merged to at most four packets per second. */
+    private static final long MIN_FLUSH_INTERVAL_MS = 250;
+
+    /** Runs deferred UI flushes for all open pages. */
+    private static final ScheduledExecutorService UI_SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "HeightmapImportPage-UI");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Decodes thumbnails for all open pages, off the common pool that the imports' parallel tile
+     * generation uses. Two threads and a short queue; when it is full the oldest request – most
+     * likely one the player has already moved past – is dropped.
+     */
+    private static final ExecutorService DECODE_EXECUTOR = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(8), r -> {
+                Thread t = new Thread(r, "HeightmapImportPage-Decode");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    // Value selectors of the form fields (also the event data sources)
+    private static final String SEL_HEIGHTMAP_PATH  = "#HeightmapPath #Input.Value";
+    private static final String SEL_COLORMAP_PATH   = "#ColormapPath #Input.Value";
+    private static final String SEL_HEIGHT_SCALE    = "#HeightScaleInput #Input.Value";
+    private static final String SEL_MAX_SIZE        = "#MaxSizeInput #Input.Value";
+    private static final String SEL_BLOCK_PATTERN   = "#BaseBlock #Input.Value";
+    private static final String SEL_SEED            = "#SeedInput #Input.Value";
+    private static final String SEL_NODATA          = "#RawRangeInput #Nodata.Value";
+    private static final String SEL_CLIP_LOW        = "#RawRangeInput #Low.Value";
+    private static final String SEL_CLIP_HIGH       = "#RawRangeInput #High.Value";
+    private static final String SEL_MATERIAL_RULES  = "#MaterialRules #Input.Value";
+    private static final String SEL_IMPORT_MODE     = "#ImportModeInput #Input.Value";
+    private static final String SEL_CHANNEL         = "#ChannelInput #Input.Value";
+    private static final String SEL_ORIGIN          = "#OriginInput #Input.Value";
+    private static final String SEL_INVERT          = "#InvertContainer #InvertCheckbox #CheckBox.Value";
+    private static final String SEL_SMOOTH          = "#SmoothContainer #SmoothCheckbox #CheckBox.Value";
+    private static final String SEL_DELTA           = "#DeltaContainer #DeltaCheckbox #CheckBox.Value";
+    private static final String SEL_LOD             = "#LodContainer #LodCheckbox #CheckBox.Value";
+    private static final String SEL_DITHER          = "#DitherContainer #DitherCheckbox #CheckBox.Value";
+    private static final String SEL_SHELL           = "#ShellContainer #ShellCheckbox #CheckBox.Value";
+    private static final String SEL_SHELL_THICKNESS = "#ShellThicknessInput #Input.Value";
+    private static final String SEL_REGION_X        = "#RegionInput #X.Value";
+    private static final String SEL_REGION_Z        = "#RegionInput #Z.Value";
+    private static final String SEL_REGION_W        = "#RegionInput #Width.Value";
+    private static final String SEL_REGION_H        = "#RegionInput #Height.Value";
+    private static final Set<String> HEIGHTMAP_EXTENSIONS = Set.of(".png", ".bmp", ".jpg", ".jpeg", ".tga", ".f32", ".f16", ".gz", ".deflate");
+    private static final Set<String> COLORMAP_EXTENSIONS  = Set.of(".png", ".bmp", ".jpg", ".jpeg");
 
     // ── State ──────────────────────────────────────────────────────────────────
     @Nonnull  private String heightmapPath  = "";
@@ -83,6 +167,14 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
     private int  heightScale = DEFAULT_HEIGHT_SCALE;
     private int  maxSize     = DEFAULT_MAX_SIZE;
     @Nonnull  private String blockPattern   = "Rock_Stone";
+    @Nonnull  private String seedStr        = "0";
+    @Nonnull  private String nodataStr      = "";    // raw inputs: value to mask, blank = none
+    private boolean rawInput;                        // selected source is raw (from computePreviewInfo)
+    private final Set<Path> sizing       = ConcurrentHashMap.newKeySet();  // compressed files being counted off-thread
+    private final Set<Path> sizingFailed = ConcurrentHashMap.newKeySet();  // … and those whose count failed
+    private double clipLow  = 0;                     // raw inputs: normalisation percentiles
+    private double clipHigh = 100;
+    @Nonnull  private String materialRules  = "";
     @Nonnull  private String importModeStr  = "heightmap";
     @Nonnull  private ImportMode importMode = ImportMode.HEIGHTMAP;
     @Nonnull  private String channelStr     = "luminance";
@@ -91,35 +183,41 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
     @Nonnull  private Origin origin         = Origin.BOTTOM_CENTER;
     private boolean invertHeight  = false;
     private boolean smooth        = false;
+    private boolean deltaOnly     = false;
+    private boolean lodPreview    = true;
+    private boolean dither        = false;   // ordered dithering of colormap colours
+    private boolean shell         = false;
+    private int  shellThickness = DEFAULT_SHELL_THICKNESS;
+    /** Crop window in source pixels; width/height 0 = to the source edge. */
+    private int  regionX, regionZ, regionW, regionH;
 
     @Nullable private String  statusMessage;
     @Nullable private String  previewInfo;   // e.g. "4096×4096 → 256×32×256 (~524k blocks)"
+    @Nullable private volatile Thumbnail thumbnail;
+    @Nullable private volatile Thumbnail.Key thumbnailKey;   // what the thumbnail should show
     private boolean isError      = false;
     private boolean isProcessing = false;
 
     /** Which browser is currently open: 0 = none, 1 = heightmap, 2 = colormap */
     private int activeBrowser = 0;
 
+    /** Last value sent to (or reported by) the client per property selector. */
+    private final Map<String, Object> sentValues = new HashMap<>();
+    private long    lastFlush;
+    @Nullable private ScheduledFuture<?> pendingFlush;
+    /** Set once the page is dismissed or replaced; nothing is sent after that. */
+    private boolean closed;
+
     @Nonnull private final ServerFileBrowser heightmapBrowser;
     @Nonnull private final ServerFileBrowser colormapBrowser;
+    @Nullable private final HeightmapIndex index;
 
     // ── Construction ───────────────────────────────────────────────────────────
 
     public HeightmapImportPage(@Nonnull PlayerRef playerRef) {
         super(playerRef, CustomPageLifetime.CanDismiss, PageData.CODEC);
 
-        FileBrowserConfig hmConfig = FileBrowserConfig.builder()
-                .listElementId("#BrowserPage #FileList")
-                .searchInputId("#BrowserPage #SearchInput")
-                .currentPathId("#BrowserPage #CurrentPath")
-                .allowedExtensions(".png", ".bmp", ".jpg", ".jpeg", ".tga", ".f32", ".f16")
-                .enableRootSelector(false)
-                .enableSearch(true)
-                .enableDirectoryNav(true)
-                .maxResults(50)
-                .assetPackMode(true, ASSET_PACK_SUB_PATH)
-                .build();
-        this.heightmapBrowser = new ServerFileBrowser(hmConfig);
+        this.heightmapBrowser = new ServerFileBrowser(heightmapBrowserConfig());
 
         FileBrowserConfig cmConfig = FileBrowserConfig.builder()
                 .listElementId("#ColormapBrowserPage #FileList")
@@ -133,6 +231,41 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                 .assetPackMode(true, ASSET_PACK_SUB_PATH)
                 .build();
         this.colormapBrowser = new ServerFileBrowser(cmConfig);
+
+        // The plugin indexes the browsed root at startup; adding it again is a no-op unless it
+        // only appeared since (a pack installed while the server was running)
+        HyghtmapModPlugin plugin = HyghtmapModPlugin.getInstance();
+        this.index = plugin != null ? plugin.getHeightmapIndex() : null;
+        if (index != null) {
+            Path root = heightmapBrowser.resolveAssetPackPath("");
+            if (root != null) index.addRoot(root);
+        }
+    }
+
+    @Nonnull
+    private static FileBrowserConfig heightmapBrowserConfig() {
+        return FileBrowserConfig.builder()
+                .listElementId("#BrowserPage #FileList")
+                .searchInputId("#BrowserPage #SearchInput")
+                .currentPathId("#BrowserPage #CurrentPath")
+                .allowedExtensions(".png", ".bmp", ".jpg", ".jpeg", ".tga", ".f32", ".f16", ".f32.gz", ".f16.gz", ".deflate", ".json")
+                .enableRootSelector(false)
+                .enableSearch(true)
+                .enableDirectoryNav(true)
+                .maxResults(50)
+                .assetPackMode(true, ASSET_PACK_SUB_PATH)
+                .build();
+    }
+
+    /**
+     * The asset-pack directory the heightmap browser lists and searches, resolved the same way
+     * the page resolves it.
+     *
+     * @return null if no asset pack provides it
+     */
+    @Nullable
+    public static Path resolveImportRoot() {
+        return new ServerFileBrowser(heightmapBrowserConfig()).resolveAssetPackPath("");
     }
 
     // ── UI build ───────────────────────────────────────────────────────────────
@@ -145,151 +278,313 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
 
         cmd.append("Pages/HeightmapImportPage.ui");
 
-        // Field values
-        cmd.set("#HeightmapPath #Input.Value",  heightmapPath);
-        cmd.set("#HeightScaleInput #Input.Value", heightScale);
-        cmd.set("#MaxSizeInput #Input.Value",   maxSize);
-        cmd.set("#BaseBlock #Input.Value",      blockPattern);
-        cmd.set("#InvertContainer #InvertCheckbox #CheckBox.Value", invertHeight);
-        cmd.set("#SmoothContainer #SmoothCheckbox #CheckBox.Value", smooth);
-
-        // Import-mode dropdown
-        List<DropdownEntryInfo> modeEntries = new ArrayList<>();
-        modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.heightmap"),  "heightmap"));
-        modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.surface"),    "surface"));
-        modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.colormap"),   "colormap"));
-        modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.normalmap"),  "normalmap"));
-        cmd.set("#ImportModeInput #Input.Entries", modeEntries);
-        cmd.set("#ImportModeInput #Input.Value",   importModeStr);
-
-        // Channel dropdown
-        List<DropdownEntryInfo> channelEntries = new ArrayList<>();
-        channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.luminance"), "luminance"));
-        channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.red"),       "red"));
-        channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.green"),     "green"));
-        channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.blue"),      "blue"));
-        channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.alpha"),     "alpha"));
-        cmd.set("#ChannelInput #Input.Entries", channelEntries);
-        cmd.set("#ChannelInput #Input.Value",   channelStr);
-
-        // Origin dropdown
-        List<DropdownEntryInfo> originEntries = new ArrayList<>();
-        originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.bottom_front_left"), "bottom_front_left"));
-        originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.bottom_center"),     "bottom_center"));
-        originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.center"),            "center"));
-        originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.top_center"),        "top_center"));
-        cmd.set("#OriginInput #Input.Entries", originEntries);
-        cmd.set("#OriginInput #Input.Value",   originStr);
-
-        // Colormap section visibility
-        boolean showColormap = importMode == ImportMode.COLORMAP || importMode == ImportMode.NORMALMAP;
-        cmd.set("#ColormapPath.Visible", showColormap);
-        cmd.set("#ColormapPath #Input.Value", colormapPath);
-
-        updateStatus(cmd);
-        updatePreview(cmd);
+        synchronized (this) {
+            // Fresh document – nothing of it has been sent yet
+            sentValues.clear();
+            lastFlush = System.currentTimeMillis();
+
+            // Import-mode dropdown
+            List<DropdownEntryInfo> modeEntries = new ArrayList<>();
+            modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.heightmap"),  "heightmap"));
+            modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.surface"),    "surface"));
+            modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.colormap"),   "colormap"));
+            modeEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.mode.normalmap"),  "normalmap"));
+            cmd.set("#ImportModeInput #Input.Entries", modeEntries);
+
+            // Channel dropdown
+            List<DropdownEntryInfo> channelEntries = new ArrayList<>();
+            channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.luminance"), "luminance"));
+            channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.red"),       "red"));
+            channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.green"),     "green"));
+            channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.blue"),      "blue"));
+            channelEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.heightmapImport.channel.alpha"),     "alpha"));
+            cmd.set("#ChannelInput #Input.Entries", channelEntries);
+
+            // Origin dropdown
+            List<DropdownEntryInfo> originEntries = new ArrayList<>();
+            originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.bottom_front_left"), "bottom_front_left"));
+            originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.bottom_center"),     "bottom_center"));
+            originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.center"),            "center"));
+            originEntries.add(new DropdownEntryInfo(LocalizableString.fromMessageId("server.customUI.origin.top_center"),        "top_center"));
+            cmd.set("#OriginInput #Input.Entries", originEntries);
+
+            // Field values, visibility, status and preview
+            writeState(cmd);
+            updateThumbnail(cmd);
+        }
 
         // Event bindings – main form
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#HeightmapPath #Input",  EventData.of("@HeightmapPath", "#HeightmapPath #Input.Value"),   false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#HeightScaleInput #Input", EventData.of("@HeightScale",  "#HeightScaleInput #Input.Value"), false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#MaxSizeInput #Input",   EventData.of("@MaxSize",      "#MaxSizeInput #Input.Value"),       false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#BaseBlock #Input",      EventData.of("@BlockPattern", "#BaseBlock #Input.Value"),          false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ImportModeInput #Input",EventData.of("@ImportMode",  "#ImportModeInput #Input.Value"),     false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ChannelInput #Input",   EventData.of("@Channel",     "#ChannelInput #Input.Value"),        false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#OriginInput #Input",    EventData.of("@Origin",      "#OriginInput #Input.Value"),         false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#InvertContainer #InvertCheckbox #CheckBox", EventData.of("@Invert", "#InvertContainer #InvertCheckbox #CheckBox.Value"), false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#SmoothContainer #SmoothCheckbox #CheckBox", EventData.of("@Smooth", "#SmoothContainer #SmoothCheckbox #CheckBox.Value"), false);
-        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ColormapPath #Input",   EventData.of("@ColormapPath","#ColormapPath #Input.Value"),        false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#HeightmapPath #Input",  EventData.of("@HeightmapPath", SEL_HEIGHTMAP_PATH),   false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#HeightScaleInput #Input", EventData.of("@HeightScale",  SEL_HEIGHT_SCALE),   false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#MaxSizeInput #Input",   EventData.of("@MaxSize",      SEL_MAX_SIZE),         false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#BaseBlock #Input",      EventData.of("@BlockPattern", SEL_BLOCK_PATTERN),    false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#SeedInput #Input",      EventData.of("@Seed",         SEL_SEED),             false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RawRangeInput #Nodata", EventData.of("@Nodata",       SEL_NODATA),           false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RawRangeInput #Low",    EventData.of("@ClipLow",      SEL_CLIP_LOW),         false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RawRangeInput #High",   EventData.of("@ClipHigh",     SEL_CLIP_HIGH),        false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#MaterialRules #Input",  EventData.of("@MaterialRules",SEL_MATERIAL_RULES),   false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ImportModeInput #Input",EventData.of("@ImportMode",  SEL_IMPORT_MODE),      false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ChannelInput #Input",   EventData.of("@Channel",     SEL_CHANNEL),          false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#OriginInput #Input",    EventData.of("@Origin",      SEL_ORIGIN),           false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#InvertContainer #InvertCheckbox #CheckBox", EventData.of("@Invert",    SEL_INVERT), false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#SmoothContainer #SmoothCheckbox #CheckBox", EventData.of("@Smooth",    SEL_SMOOTH), false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#DeltaContainer #DeltaCheckbox #CheckBox",   EventData.of("@DeltaOnly", SEL_DELTA),  false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#LodContainer #LodCheckbox #CheckBox",       EventData.of("@LodPreview", SEL_LOD),   false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#DitherContainer #DitherCheckbox #CheckBox", EventData.of("@Dither",     SEL_DITHER), false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ShellContainer #ShellCheckbox #CheckBox",   EventData.of("@Shell",     SEL_SHELL),  false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ShellThicknessInput #Input", EventData.of("@ShellThickness", SEL_SHELL_THICKNESS), false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#ColormapPath #Input",   EventData.of("@ColormapPath", SEL_COLORMAP_PATH),    false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RegionInput #X",        EventData.of("@RegionX",      SEL_REGION_X),         false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RegionInput #Z",        EventData.of("@RegionZ",      SEL_REGION_Z),         false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RegionInput #Width",    EventData.of("@RegionWidth",  SEL_REGION_W),         false);
+        evt.addEventBinding(CustomUIEventBindingType.ValueChanged, "#RegionInput #Height",   EventData.of("@RegionHeight", SEL_REGION_H),         false);
         evt.addEventBinding(CustomUIEventBindingType.Activating,   "#ImportButton",          EventData.of("Import", "true"));
         evt.addEventBinding(CustomUIEventBindingType.Activating,   "#HeightmapPath #BrowseButton", EventData.of("Browse", "true"));
         evt.addEventBinding(CustomUIEventBindingType.Activating,   "#ColormapPath #BrowseButton",  EventData.of("BrowseColormap", "true"));
 
-        // Page visibility
-        cmd.set("#FormContainer.Visible",        activeBrowser == 0);
-        cmd.set("#BrowserPage.Visible",          activeBrowser == 1);
-        cmd.set("#ColormapBrowserPage.Visible",  activeBrowser == 2);
+        // Browser buttons are bound up front, so opening a browser later only has to send its list
+        evt.addEventBinding(CustomUIEventBindingType.Activating, "#BrowserPage #SelectButton",         EventData.of("BrowserSelect",         "true"));
+        evt.addEventBinding(CustomUIEventBindingType.Activating, "#BrowserPage #CancelButton",         EventData.of("BrowserCancel",         "true"));
+        evt.addEventBinding(CustomUIEventBindingType.Activating, "#ColormapBrowserPage #SelectButton", EventData.of("ColormapBrowserSelect", "true"));
+        evt.addEventBinding(CustomUIEventBindingType.Activating, "#ColormapBrowserPage #CancelButton", EventData.of("ColormapBrowserCancel", "true"));
 
-        if (activeBrowser == 1) buildHeightmapBrowserPage(cmd, evt);
-        if (activeBrowser == 2) buildColormapBrowserPage(cmd, evt);
+        if (activeBrowser == 1) buildBrowserContent(heightmapBrowser, cmd, evt);
+        if (activeBrowser == 2) buildBrowserContent(colormapBrowser,  cmd, evt);
     }
 
-    private void buildHeightmapBrowserPage(@Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt) {
-        heightmapBrowser.buildSearchInput(cmd, evt);
-        heightmapBrowser.buildCurrentPath(cmd);
-        heightmapBrowser.buildFileList(cmd, evt);
-        evt.addEventBinding(CustomUIEventBindingType.Activating, "#BrowserPage #SelectButton", EventData.of("BrowserSelect",  "true"));
-        evt.addEventBinding(CustomUIEventBindingType.Activating, "#BrowserPage #CancelButton", EventData.of("BrowserCancel",  "true"));
+    private void buildBrowserContent(@Nonnull ServerFileBrowser browser,
+                                     @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt) {
+        browser.buildSearchInput(cmd, evt);
+        browser.buildCurrentPath(cmd);
+        buildFileList(browser, cmd, evt);
     }
 
-    private void buildColormapBrowserPage(@Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt) {
-        colormapBrowser.buildSearchInput(cmd, evt);
-        colormapBrowser.buildCurrentPath(cmd);
-        colormapBrowser.buildFileList(cmd, evt);
-        evt.addEventBinding(CustomUIEventBindingType.Activating, "#ColormapBrowserPage #SelectButton", EventData.of("ColormapBrowserSelect", "true"));
-        evt.addEventBinding(CustomUIEventBindingType.Activating, "#ColormapBrowserPage #CancelButton", EventData.of("ColormapBrowserCancel", "true"));
+    /** The current directory from the background index if it is ready, else the browser's own listing. */
+    private void buildFileList(@Nonnull ServerFileBrowser browser,
+                               @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt) {
+        if (!buildIndexedListing(browser, cmd, evt)) browser.buildFileList(cmd, evt);
     }
 
-    private void updateStatus(@Nonnull UICommandBuilder cmd) {
+    // ── UI state ───────────────────────────────────────────────────────────────
+
+    /**
+     * Writes every server-controlled property through {@link #put}, so only values that differ
+     * from what the client already shows end up in {@code cmd}.
+     *
+     * @return number of properties written
+     */
+    private synchronized int writeState(@Nonnull UICommandBuilder cmd) {
+        int n = 0;
+        n += put(cmd, SEL_HEIGHTMAP_PATH,  heightmapPath);
+        n += put(cmd, SEL_HEIGHT_SCALE,    heightScale);
+        n += put(cmd, SEL_MAX_SIZE,        maxSize);
+        n += put(cmd, SEL_BLOCK_PATTERN,   blockPattern);
+        n += put(cmd, SEL_SEED,            seedStr);
+        n += put(cmd, SEL_NODATA,          nodataStr);
+        n += put(cmd, SEL_CLIP_LOW,        clipLow);
+        n += put(cmd, SEL_CLIP_HIGH,       clipHigh);
+        n += put(cmd, SEL_MATERIAL_RULES,  materialRules);
+        n += put(cmd, SEL_INVERT,          invertHeight);
+        n += put(cmd, SEL_SMOOTH,          smooth);
+        n += put(cmd, SEL_DELTA,           deltaOnly);
+        n += put(cmd, SEL_LOD,             lodPreview);
+        n += put(cmd, SEL_DITHER,          dither);
+        n += put(cmd, SEL_SHELL,           shell);
+        n += put(cmd, SEL_SHELL_THICKNESS, shellThickness);
+        n += put(cmd, SEL_IMPORT_MODE,     importModeStr);
+        n += put(cmd, SEL_CHANNEL,         channelStr);
+        n += put(cmd, SEL_ORIGIN,          originStr);
+        n += put(cmd, SEL_COLORMAP_PATH,   colormapPath);
+        n += put(cmd, SEL_REGION_X,        regionX);
+        n += put(cmd, SEL_REGION_Z,        regionZ);
+        n += put(cmd, SEL_REGION_W,        regionW);
+        n += put(cmd, SEL_REGION_H,        regionH);
+
+        // Shell options only apply to solid heightmap columns
+        n += put(cmd, "#ShellContainer.Visible",      importMode == ImportMode.HEIGHTMAP);
+        n += put(cmd, "#ShellThicknessInput.Visible", importMode == ImportMode.HEIGHTMAP && shell);
+
+        // Raw range only applies to float inputs
+        n += put(cmd, "#RawRangeInput.Visible", rawInput);
+
+        // Colormap section visibility
+        n += put(cmd, "#ColormapPath.Visible", importMode == ImportMode.COLORMAP || importMode == ImportMode.NORMALMAP);
+
+        // Status
+        n += put(cmd, "#StatusText.Visible", statusMessage != null);
         if (statusMessage != null) {
-            cmd.set("#StatusText.Text",             statusMessage);
-            cmd.set("#StatusText.Visible",          true);
-            cmd.set("#StatusText.Style.TextColor",  isError ? "#e74c3c" : "#cfd8e3");
-        } else {
-            cmd.set("#StatusText.Visible", false);
+            n += put(cmd, "#StatusText.Text",            statusMessage);
+            n += put(cmd, "#StatusText.Style.TextColor", isError ? "#e74c3c" : "#cfd8e3");
         }
+
+        // Preview
+        n += put(cmd, "#PreviewInfo.Visible", previewInfo != null);
+        if (previewInfo != null) n += put(cmd, "#PreviewInfo.Text", previewInfo);
+
+        // Page visibility
+        n += put(cmd, "#FormContainer.Visible",       activeBrowser == 0);
+        n += put(cmd, "#BrowserPage.Visible",         activeBrowser == 1);
+        n += put(cmd, "#ColormapBrowserPage.Visible", activeBrowser == 2);
+        return n;
     }
 
-    private void updatePreview(@Nonnull UICommandBuilder cmd) {
-        if (previewInfo != null) {
-            cmd.set("#PreviewInfo.Text",    previewInfo);
-            cmd.set("#PreviewInfo.Visible", true);
-        } else {
-            cmd.set("#PreviewInfo.Visible", false);
+    /** Sets {@code selector} to {@code value} unless the client already has that value. */
+    private int put(@Nonnull UICommandBuilder cmd, @Nonnull String selector, @Nonnull Object value) {
+        if (value.equals(sentValues.get(selector))) return 0;
+        sentValues.put(selector, value);
+        if      (value instanceof Boolean b) cmd.set(selector, (boolean) b);
+        else if (value instanceof Integer i) cmd.set(selector, (int) i);
+        else if (value instanceof Double d)  cmd.set(selector, (double) d);
+        else                                 cmd.set(selector, value.toString());
+        return 1;
+    }
+
+    /** Records a value the client reported itself, so it is not echoed back. */
+    private synchronized void acknowledge(@Nonnull String selector, @Nonnull Object value) {
+        sentValues.put(selector, value);
+    }
+
+    /** Sends whatever state changed since the last update, if anything. */
+    private synchronized void refresh() {
+        pendingFlush = null;
+        if (closed) return;
+        lastFlush    = System.currentTimeMillis();
+        UICommandBuilder cmd = new UICommandBuilder();
+        if (writeState(cmd) > 0) sendUpdate(cmd, new UIEventBuilder(), false);
+    }
+
+    /**
+     * Like {@link #refresh()}, but at most once per {@link #MIN_FLUSH_INTERVAL_MS}: updates in
+     * between are merged into one deferred flush.
+     */
+    private synchronized void refreshThrottled() {
+        if (closed) return;
+        long wait = lastFlush + MIN_FLUSH_INTERVAL_MS - System.currentTimeMillis();
+        if (wait <= 0) {
+            refresh();
+        } else if (pendingFlush == null) {
+            pendingFlush = UI_SCHEDULER.schedule(this::refresh, wait, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Stops all further updates: the deferred flush is cancelled and later ones are dropped. */
+    private synchronized void close() {
+        closed = true;
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+
+    @Override
+    public void onDismiss(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        close();
+        super.onDismiss(ref, store);
+    }
+
+    /** Draws the thumbnail as rows of coloured cells; equal neighbouring cells are merged. */
+    private void updateThumbnail(@Nonnull UICommandBuilder cmd) {
+        cmd.clear("#Thumbnail");
+        Thumbnail t = thumbnail;
+        if (t == null) {
+            put(cmd, "#Thumbnail.Visible", false);
+            return;
+        }
+        int cell = Math.max(1, THUMBNAIL_PX / Math.max(t.width(), t.height()));
+        for (int z = 0; z < t.height(); z++) {
+            StringBuilder row = new StringBuilder("Group { LayoutMode: Left; Anchor: (Height: ").append(cell).append(");");
+            int x = 0;
+            while (x < t.width()) {
+                // 4 bits per channel keeps runs long without visible banding at this size
+                int colour = t.rgb(x, z) & 0xF0F0F0;
+                int run = 1;
+                while (x + run < t.width() && (t.rgb(x + run, z) & 0xF0F0F0) == colour) run++;
+                row.append(String.format(" Group { Anchor: (Width: %d); Background: #%06x; }",
+                        run * cell, colour | (colour >> 4)));
+                x += run;
+            }
+            cmd.appendInline("#Thumbnail", row.append(" }").toString());
         }
+        put(cmd, "#Thumbnail.Visible", true);
+    }
+
+    /**
+     * Points the thumbnail at the current file, channel, invert and mode. A cached thumbnail is
+     * shown at once; otherwise it is rendered off-thread and pushed when ready, unless the
+     * settings have moved on by then.
+     */
+    private void refreshThumbnail() {
+        Thumbnail.Key key = null;
+        if (!heightmapPath.isEmpty()) {
+            try {
+                key = Thumbnail.keyFor(Paths.get(heightmapPath), channel, invertHeight, importMode == ImportMode.NORMALMAP);
+            } catch (Exception ignored) { /* missing or invalid path – no thumbnail */ }
+        }
+        thumbnailKey = key;
+        Thumbnail cached = key != null ? Thumbnail.cached(key) : null;
+        if (cached == null && key != null && index != null) cached = index.thumbnail(key);
+        if (key == null || cached != null) {
+            showThumbnail(cached);
+            return;
+        }
+
+        final Thumbnail.Key fKey = key;
+        CompletableFuture.supplyAsync(() -> {
+            try { return Thumbnail.get(fKey); }
+            catch (Exception e) { return null; }
+        }, DECODE_EXECUTOR).thenAccept(t -> {
+            if (fKey.equals(thumbnailKey)) showThumbnail(t);   // else superseded by newer settings
+        });
+    }
+
+    private synchronized void showThumbnail(@Nullable Thumbnail t) {
+        if (closed || t == thumbnail) return;   // a slow decode may finish after the page closed
+        thumbnail = t;
+        UICommandBuilder cmd = new UICommandBuilder();
+        updateThumbnail(cmd);
+        sendUpdate(cmd, new UIEventBuilder(), false);
     }
 
     private void setError(@Nonnull String msg) {
-        statusMessage  = msg;
-        isError        = true;
-        isProcessing   = false;
-        rebuild();
+        synchronized (this) {
+            statusMessage  = msg;
+            isError        = true;
+            isProcessing   = false;
+        }
+        refreshThrottled();
     }
 
     private void setStatus(@Nonnull String msg) {
-        statusMessage = msg;
-        isError       = false;
-        rebuild();
+        synchronized (this) {
+            statusMessage = msg;
+            isError       = false;
+        }
+        refreshThrottled();
     }
 
     // ── Event handling ─────────────────────────────────────────────────────────
 
+    /**
+     * Synchronized like {@link #writeState}, so a deferred flush never diffs a half-applied edit
+     * or echoes an old value over one that was just acknowledged.
+     */
     @Override
-    public void handleDataEvent(@Nonnull Ref<EntityStore> ref,
+    public synchronized void handleDataEvent(@Nonnull Ref<EntityStore> ref,
                                 @Nonnull Store<EntityStore> store,
                                 @Nonnull PageData data) {
 
         // ── Browser open ──────────────────────────────────────────────────
         if (Boolean.TRUE.equals(data.browse)) {
-            activeBrowser = 1; rebuild(); return;
+            openBrowser(1, heightmapBrowser); return;
         }
         if (Boolean.TRUE.equals(data.browseColormap)) {
-            activeBrowser = 2; rebuild(); return;
+            openBrowser(2, colormapBrowser); return;
         }
 
-        // ── Browser cancel ────────────────────────────────────────────────
-        if (Boolean.TRUE.equals(data.browserCancel)) {
-            activeBrowser = 0; rebuild(); return;
-        }
-        if (Boolean.TRUE.equals(data.colormapBrowserCancel)) {
-            activeBrowser = 0; rebuild(); return;
-        }
-
-        // ── Browser select (close) ────────────────────────────────────────
-        if (Boolean.TRUE.equals(data.browserSelect)) {
-            activeBrowser = 0; rebuild(); return;
-        }
-        if (Boolean.TRUE.equals(data.colormapBrowserSelect)) {
-            activeBrowser = 0; rebuild(); return;
+        // ── Browser cancel / select (close) ───────────────────────────────
+        if (Boolean.TRUE.equals(data.browserCancel) || Boolean.TRUE.equals(data.colormapBrowserCancel)
+                || Boolean.TRUE.equals(data.browserSelect) || Boolean.TRUE.equals(data.colormapBrowserSelect)) {
+            activeBrowser = 0; refresh(); return;
         }
 
         // ── Browser file events ───────────────────────────────────────────
@@ -297,33 +592,57 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
         if (activeBrowser == 2 && handleBrowserEvent(data, colormapBrowser,  false)) return;
 
         // ── Main form field updates ───────────────────────────────────────
-        boolean needsUpdate = false;
+        // Values typed by the player are acknowledged as-is; if normalising them changes
+        // anything, the state diff sends the corrected value back.
+        boolean thumbnailChanged = false;
 
         if (data.heightmapPath != null) {
+            acknowledge(SEL_HEIGHTMAP_PATH, data.heightmapPath);
             heightmapPath = StringUtil.stripQuotes(data.heightmapPath.trim());
             statusMessage = null;
             previewInfo   = computePreviewInfo(heightmapPath);
-            needsUpdate   = true;
+            thumbnailChanged = true;
         }
         if (data.colormapPath != null) {
+            acknowledge(SEL_COLORMAP_PATH, data.colormapPath);
             colormapPath = StringUtil.stripQuotes(data.colormapPath.trim());
-            needsUpdate  = true;
         }
         if (data.heightScale != null) {
+            acknowledge(SEL_HEIGHT_SCALE, data.heightScale);
             heightScale  = Math.max(MIN_HEIGHT, Math.min(MAX_HEIGHT, data.heightScale));
             previewInfo  = computePreviewInfo(heightmapPath);
-            needsUpdate  = true;
         }
         if (data.maxSize != null) {
+            acknowledge(SEL_MAX_SIZE, data.maxSize);
             maxSize     = Math.max(1, Math.min(MAX_MAX_SIZE, data.maxSize));
             previewInfo = computePreviewInfo(heightmapPath);
-            needsUpdate = true;
         }
         if (data.blockPattern != null) {
+            acknowledge(SEL_BLOCK_PATTERN, data.blockPattern);
             blockPattern = data.blockPattern.trim();
-            needsUpdate  = true;
+        }
+        if (data.seed != null) {
+            acknowledge(SEL_SEED, data.seed);
+            seedStr = data.seed.trim();
+        }
+        if (data.nodata != null) {
+            acknowledge(SEL_NODATA, data.nodata);
+            nodataStr = data.nodata.trim();
+        }
+        if (data.clipLow != null) {
+            acknowledge(SEL_CLIP_LOW, data.clipLow);
+            clipLow = Math.max(0, Math.min(100, data.clipLow));
+        }
+        if (data.clipHigh != null) {
+            acknowledge(SEL_CLIP_HIGH, data.clipHigh);
+            clipHigh = Math.max(0, Math.min(100, data.clipHigh));
+        }
+        if (data.materialRules != null) {
+            acknowledge(SEL_MATERIAL_RULES, data.materialRules);
+            materialRules = data.materialRules.trim();
         }
         if (data.importMode != null) {
+            acknowledge(SEL_IMPORT_MODE, data.importMode);
             importModeStr = data.importMode.trim().toLowerCase();
             importMode = switch (importModeStr) {
                 case "surface"   -> ImportMode.SURFACE;
@@ -331,11 +650,11 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                 case "normalmap" -> ImportMode.NORMALMAP;
                 default          -> ImportMode.HEIGHTMAP;
             };
-            // Toggling mode may show/hide colormap path — full rebuild
-            rebuild();
-            return;
+            previewInfo = computePreviewInfo(heightmapPath);
+            thumbnailChanged = true;
         }
         if (data.channel != null) {
+            acknowledge(SEL_CHANNEL, data.channel);
             channelStr = data.channel.trim().toLowerCase();
             channel = switch (channelStr) {
                 case "red"   -> Channel.RED;
@@ -344,9 +663,10 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                 case "alpha" -> Channel.ALPHA;
                 default      -> Channel.LUMINANCE;
             };
-            needsUpdate = true;
+            thumbnailChanged = true;
         }
         if (data.origin != null) {
+            acknowledge(SEL_ORIGIN, data.origin);
             originStr = data.origin.trim().toLowerCase();
             origin = switch (originStr) {
                 case "bottom_front_left" -> Origin.BOTTOM_FRONT_LEFT;
@@ -354,22 +674,89 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                 case "top_center"        -> Origin.TOP_CENTER;
                 default                  -> Origin.BOTTOM_CENTER;
             };
-            needsUpdate = true;
         }
         if (data.invert != null) {
+            acknowledge(SEL_INVERT, data.invert);
             invertHeight = data.invert;
-            needsUpdate  = true;
+            thumbnailChanged = true;
         }
         if (data.smooth != null) {
-            smooth      = data.smooth;
-            needsUpdate = true;
+            acknowledge(SEL_SMOOTH, data.smooth);
+            smooth = data.smooth;
+        }
+        if (data.deltaOnly != null) {
+            acknowledge(SEL_DELTA, data.deltaOnly);
+            deltaOnly = data.deltaOnly;
+        }
+        if (data.dither != null) {
+            acknowledge(SEL_DITHER, data.dither);
+            dither = data.dither;
+        }
+        if (data.lodPreview != null) {
+            acknowledge(SEL_LOD, data.lodPreview);
+            lodPreview = data.lodPreview;
+        }
+        if (data.regionX != null) {
+            acknowledge(SEL_REGION_X, data.regionX);
+            regionX     = Math.max(0, data.regionX);
+            previewInfo = computePreviewInfo(heightmapPath);
+        }
+        if (data.regionZ != null) {
+            acknowledge(SEL_REGION_Z, data.regionZ);
+            regionZ     = Math.max(0, data.regionZ);
+            previewInfo = computePreviewInfo(heightmapPath);
+        }
+        if (data.regionW != null) {
+            acknowledge(SEL_REGION_W, data.regionW);
+            regionW     = Math.max(0, data.regionW);
+            previewInfo = computePreviewInfo(heightmapPath);
+        }
+        if (data.regionH != null) {
+            acknowledge(SEL_REGION_H, data.regionH);
+            regionH     = Math.max(0, data.regionH);
+            previewInfo = computePreviewInfo(heightmapPath);
+        }
+        if (data.shellThickness != null) {
+            acknowledge(SEL_SHELL_THICKNESS, data.shellThickness);
+            shellThickness = Math.max(1, Math.min(MAX_SHELL_THICKNESS, data.shellThickness));
+            previewInfo    = computePreviewInfo(heightmapPath);
+        }
+        if (data.shell != null) {
+            acknowledge(SEL_SHELL, data.shell);
+            shell       = data.shell;
+            previewInfo = computePreviewInfo(heightmapPath);
         }
 
+        if (thumbnailChanged) refreshThumbnail();
         if (Boolean.TRUE.equals(data.doImport) && !isProcessing) {
             performImport(ref, store);
-        } else if (needsUpdate) {
-            sendUpdate();
+        } else {
+            refresh();
+        }
+    }
+
+    /** Shows a browser: sends its list and bindings plus the visibility changes, without a rebuild. */
+    private void openBrowser(int which, @Nonnull ServerFileBrowser browser) {
+        activeBrowser = which;
+        UICommandBuilder cmd = new UICommandBuilder();
+        UIEventBuilder   evt = new UIEventBuilder();
+        buildBrowserContent(browser, cmd, evt);
+        writeState(cmd);
+        sendUpdate(cmd, evt, false);
+    }
+
+    /** Takes a file picked in a browser and returns to the form. */
+    private void selectFile(@Nonnull Path resolved, boolean isHeightmap) {
+        if (isHeightmap) {
+            heightmapPath = resolved.toString();
+            statusMessage = null;
+            previewInfo   = computePreviewInfo(heightmapPath);
+            refreshThumbnail();
+        } else {
+            colormapPath = resolved.toString();
         }
+        activeBrowser = 0;
+        refresh();
     }
 
     /**
@@ -380,8 +767,9 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                                        @Nonnull ServerFileBrowser browser,
                                        boolean isHeightmap) {
         if (data.searchQuery != null) {
-            browser.setSearchQuery(data.searchQuery.trim().toLowerCase());
-            rebuildBrowser(browser);
+            String query = data.searchQuery.trim().toLowerCase();
+            browser.setSearchQuery(query);
+            if (query.isEmpty() || !showIndexedResults(browser, isHeightmap, query)) rebuildBrowser(browser);
             return true;
         }
         if (data.file != null) {
@@ -400,30 +788,118 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                     : browser.getAssetPackCurrentPath() + "/" + fileName;
             Path resolved = browser.resolveAssetPackPath(virtualPath);
             if (resolved != null && Files.isRegularFile(resolved, LinkOption.NOFOLLOW_LINKS)) {
-                if (isHeightmap) heightmapPath = resolved.toString();
-                else             colormapPath  = resolved.toString();
-                activeBrowser = 0;
-                rebuild();
+                selectFile(resolved, isHeightmap);
                 return true;
             }
         }
         if (data.searchResult != null) {
             Path resolved = browser.resolveAssetPackPath(data.searchResult);
             if (resolved != null && Files.isRegularFile(resolved, LinkOption.NOFOLLOW_LINKS)) {
-                if (isHeightmap) heightmapPath = resolved.toString();
-                else             colormapPath  = resolved.toString();
-                activeBrowser = 0;
-                rebuild();
+                selectFile(resolved, isHeightmap);
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Fills the file list with search hits from the background index, which covers every
+     * subdirectory and already knows each file's dimensions. Selecting a hit sends the usual
+     * {@code SearchResult} event.
+     *
+     * @return false if the index is not available or still scanning (the browser's own search is used)
+     */
+    private boolean showIndexedResults(@Nonnull ServerFileBrowser browser, boolean isHeightmap, @Nonnull String query) {
+        if (index == null || !index.isReady()) return false;
+        Path root = browser.resolveAssetPackPath("");
+        if (root == null) return false;
+
+        String listId = listIdOf(browser);
+        List<HeightmapIndex.Entry> hits = index.search(root, query,
+                isHeightmap ? HEIGHTMAP_EXTENSIONS : COLORMAP_EXTENSIONS, MAX_SEARCH_RESULTS);
+
+        UICommandBuilder cmd = new UICommandBuilder();
+        UIEventBuilder   evt = new UIEventBuilder();
+        cmd.clear(listId);
+        for (int i = 0; i < hits.size(); i++) {
+            HeightmapIndex.Entry hit = hits.get(i);
+            String virtualPath = root.toAbsolutePath().normalize().relativize(hit.path()).toString().replace('\\', '/');
+            appendIndexedRow(cmd, evt, listId, i, virtualPath, hit.describe(), "SearchResult", virtualPath, hit.path());
+        }
+        browser.buildCurrentPath(cmd);
+        sendUpdate(cmd, evt, false);
+        return true;
+    }
+
+    /**
+     * Lists the browser's current directory from the background index: subdirectories (which
+     * navigate through the browser's usual {@code File} event), then files with their dimensions,
+     * format and thumbnail (which select through {@code SearchResult}, like search hits).
+     *
+     * @return false if the index is not available or still scanning (the browser lists the directory itself)
+     */
+    private boolean buildIndexedListing(@Nonnull ServerFileBrowser browser,
+                                        @Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt) {
+        if (index == null || !index.isReady()) return false;
+        Path root = browser.resolveAssetPackPath("");
+        if (root == null) return false;
+        root = root.toAbsolutePath().normalize();
+        String current = browser.getAssetPackCurrentPath();
+        Path dir = current.isEmpty() ? root : root.resolve(current).normalize();
+        if (!dir.startsWith(root)) return false;
+
+        String listId = listIdOf(browser);
+        cmd.clear(listId);
+        int i = 0;
+        if (!current.isEmpty()) appendIndexedRow(cmd, evt, listId, i++, "..", "", "File", "..", null);
+        for (Path sub : index.subdirectories(dir)) {
+            String name = sub.getFileName().toString();
+            appendIndexedRow(cmd, evt, listId, i++, name + "/", "Folder", "File", name, null);
+        }
+        Set<String> extensions = browser == heightmapBrowser ? HEIGHTMAP_EXTENSIONS : COLORMAP_EXTENSIONS;
+        for (HeightmapIndex.Entry e : index.files(dir, extensions, MAX_SEARCH_RESULTS)) {
+            String virtualPath = root.relativize(e.path()).toString().replace('\\', '/');
+            appendIndexedRow(cmd, evt, listId, i++, e.path().getFileName().toString(), e.describe(),
+                    "SearchResult", virtualPath, e.path());
+        }
+        return true;
+    }
+
+    /** Appends one row to an indexed list; {@code thumbnailOf} names a file whose indexed thumbnail is drawn. */
+    private void appendIndexedRow(@Nonnull UICommandBuilder cmd, @Nonnull UIEventBuilder evt, @Nonnull String listId,
+                                  int i, @Nonnull String label, @Nonnull String details,
+                                  @Nonnull String eventKey, @Nonnull String eventValue, @Nullable Path thumbnailOf) {
+        String item = listId + "[" + i + "]";
+        cmd.append(listId, "Pages/HeightmapSearchResult.ui");
+        cmd.set(item + " #Button.Text",  label);
+        cmd.set(item + " #Details.Text", details);
+        Thumbnail t = thumbnailOf != null && index != null ? index.thumbnail(thumbnailOf) : null;
+        if (t != null) {
+            // ROW_THUMB_CELLS² cells sampled from the indexed thumbnail
+            for (int z = 0; z < ROW_THUMB_CELLS; z++) {
+                StringBuilder row = new StringBuilder("Group { LayoutMode: Left; Anchor: (Height: ")
+                        .append(ROW_THUMB_PX / ROW_THUMB_CELLS).append(");");
+                for (int x = 0; x < ROW_THUMB_CELLS; x++) {
+                    int colour = t.rgb(x * t.width() / ROW_THUMB_CELLS, z * t.height() / ROW_THUMB_CELLS);
+                    row.append(String.format(" Group { Anchor: (Width: %d); Background: #%06x; }",
+                            ROW_THUMB_PX / ROW_THUMB_CELLS, colour));
+                }
+                cmd.appendInline(item + " #Thumb", row.append(" }").toString());
+            }
+        }
+        evt.addEventBinding(CustomUIEventBindingType.Activating, item + " #Button",
+                EventData.of(eventKey, eventValue), false);
+    }
+
+    @Nonnull
+    private String listIdOf(@Nonnull ServerFileBrowser browser) {
+        return browser == heightmapBrowser ? "#BrowserPage #FileList" : "#ColormapBrowserPage #FileList";
+    }
+
     private void rebuildBrowser(@Nonnull ServerFileBrowser browser) {
         UICommandBuilder cmd = new UICommandBuilder();
         UIEventBuilder   evt = new UIEventBuilder();
-        browser.buildFileList(cmd, evt);
+        buildFileList(browser, cmd, evt);
         browser.buildCurrentPath(cmd);
         sendUpdate(cmd, evt, false);
     }
@@ -443,6 +919,26 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
         if (blocks == null) {
             setError("Invalid block pattern: " + blockPattern); return;
         }
+        BlockSampler sampler = BlockSampler.compile(blocks);
+
+        MaterialRules rules;
+        try {
+            rules = MaterialRules.compile(materialRules, heightScale, HeightmapImportPage::parseBlockPattern);
+        } catch (IllegalArgumentException e) {
+            setError("Invalid material rules: " + e.getMessage()); return;
+        }
+
+        Float nodata = null;
+        if (!nodataStr.isEmpty()) {
+            try {
+                nodata = Float.parseFloat(nodataStr);
+            } catch (NumberFormatException e) {
+                setError("Invalid nodata value: " + nodataStr); return;
+            }
+        }
+        if (clipLow >= clipHigh) {
+            setError("Clip low must be below clip high"); return;
+        }
 
         isProcessing = true;
         setStatus("Processing…");
@@ -453,123 +949,56 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
             setError("Player not found"); return;
         }
 
-        // Capture final copies for the lambda
-        final String    fHeightmapPath  = heightmapPath;
-        final String    fColormapPath   = colormapPath;
-        final int       fHeightScale    = heightScale;
-        final int       fMaxSize        = maxSize;
-        final ImportMode fMode          = importMode;
-        final Channel   fChannel        = channel;
-        final Origin    fOrigin         = origin;
-        final boolean   fInvert         = invertHeight;
-        final boolean   fSmooth         = smooth;
+        final HeightmapImport.Settings settings = new HeightmapImport.Settings(
+                Paths.get(heightmapPath), colormapPath.isEmpty() ? null : Paths.get(colormapPath),
+                importMode, channel, regionX, regionZ, regionW, regionH,
+                invertHeight, smooth, nodata, clipLow, clipHigh,
+                maxSize, heightScale, shell ? shellThickness : 0, CoordinateHash.parseSeed(seedStr),
+                dither, deltaOnly, lodPreview, origin, blockPattern, materialRules);
 
         BuilderToolsPlugin.addToQueue(playerComponent, playerRefComponent,
                 (r, builderState, componentAccessor) -> {
                     try {
-                        // 1) Load height values [0..1] for each (x,z) pixel
-                        float[][] heights = loadHeightData(Paths.get(fHeightmapPath), fChannel, fInvert);
-                        if (heights == null) {
-                            setError("Unable to read heightmap (unsupported format or corrupted)."); return;
-                        }
-
-                        int rawW = heights[0].length;
-                        int rawH = heights.length;   // z-axis
-
-                        // 2) Downscale if necessary
-                        float scaleXZ = 1.0f;
-                        int W = rawW, H = rawH;
-                        if (rawW > fMaxSize || rawH > fMaxSize) {
-                            scaleXZ = (float) fMaxSize / Math.max(rawW, rawH);
-                            W = Math.round(rawW * scaleXZ);
-                            H = Math.round(rawH * scaleXZ);
-                        }
-
-                        // 3) Optional smooth pass (box-blur 3×3 on raw heights)
-                        if (fSmooth) heights = boxBlur(heights);
-
-                        // 4) Optional colormap for COLORMAP / NORMALMAP modes
                         BlockColorIndex colorIndex = BuilderToolsPlugin.get().getBlockColorIndex();
-                        BufferedImage colormapImage = null;
-                        if ((fMode == ImportMode.COLORMAP || fMode == ImportMode.NORMALMAP)
-                                && !fColormapPath.isEmpty()) {
-                            try { colormapImage = ImageIO.read(Paths.get(fColormapPath).toFile()); }
-                            catch (Exception ignored) { /* fall through – use block pattern */ }
-                        }
-
-                        // 5) Build the block selection
-                        Random random = new Random();
-                        int totalBlocks = estimateBlockCount(fMode, W, H, fHeightScale);
-                        BlockSelection selection = new BlockSelection(totalBlocks, 0);
-                        selection.setPosition(0, 0, 0);
-
-                        int sizeX = W;
-                        int sizeY = (fMode == ImportMode.COLORMAP) ? 1 : fHeightScale;
-                        int sizeZ = H;
-
-                        int blockCount = 0;
-
-                        for (int iz = 0; iz < H; iz++) {
-                            for (int ix = 0; ix < W; ix++) {
-                                // Sample from original array (nearest-neighbour)
-                                int srcX = Math.min((int)(ix / scaleXZ), rawW - 1);
-                                int srcZ = Math.min((int)(iz / scaleXZ), rawH - 1);
-                                float hNorm = heights[srcZ][srcX];
-
-                                int blockId = resolveBlockId(fMode, fColormapPath, colormapImage,
-                                        colorIndex, blocks, random, srcX, srcZ, rawW, rawH, hNorm);
-                                if (blockId <= 0) continue;
-
-                                switch (fMode) {
-                                    case HEIGHTMAP -> {
-                                        // Stack of blocks from y=0 up to computed height
-                                        int colH = Math.max(1, Math.round(hNorm * fHeightScale));
-                                        for (int iy = 0; iy < colH; iy++) {
-                                            selection.addBlockAtLocalPos(ix, iy, iz, blockId, 0, 0, 0);
-                                            blockCount++;
-                                        }
+                        HeightmapImport.Result result = HeightmapImport.run(settings, sampler, rules,
+                                colorIndex::findClosestBlock, new HeightmapImport.Target<BlockSelection>() {
+                                    @Nonnull
+                                    @Override
+                                    public BlockSelection newSelection(int capacity) {
+                                        BlockSelection selection = new BlockSelection(capacity, 0);
+                                        selection.setPosition(0, 0, 0);
+                                        return selection;
                                     }
-                                    case SURFACE, NORMALMAP -> {
-                                        // Single block at the surface height
-                                        int iy = Math.max(0, Math.round(hNorm * fHeightScale) - 1);
-                                        selection.addBlockAtLocalPos(ix, iy, iz, blockId, 0, 0, 0);
-                                        blockCount++;
+
+                                    @Override
+                                    public void addBlock(@Nonnull BlockSelection selection, int x, int y, int z, int blockId) {
+                                        selection.addBlockAtLocalPos(x, y, z, blockId, 0, 0, 0);
                                     }
-                                    case COLORMAP -> {
-                                        // Flat — height value not used
-                                        int rgba  = colormapImage != null
-                                                ? colormapImage.getRGB(Math.min(srcX, colormapImage.getWidth()-1),
-                                                Math.min(srcZ, colormapImage.getHeight()-1))
-                                                : 0;
-                                        int alpha = (rgba >> 24) & 0xFF;
-                                        if (colormapImage == null || alpha >= 128) {
-                                            selection.addBlockAtLocalPos(ix, 0, iz, blockId, 0, 0, 0);
-                                            blockCount++;
-                                        }
+
+                                    @Override
+                                    public void setArea(@Nonnull BlockSelection selection, int minX, int minY, int minZ,
+                                                        int maxX, int maxY, int maxZ) {
+                                        selection.setSelectionArea(new Vector3i(minX, minY, minZ), new Vector3i(maxX, maxY, maxZ));
                                     }
-                                }
-                            }
-                        }
 
-                        // 6) Apply origin offset
-                        int offX = 0, offY = 0, offZ = 0;
-                        switch (fOrigin) {
-                            case BOTTOM_FRONT_LEFT -> { /* 0,0,0 */ }
-                            case BOTTOM_CENTER     -> { offX = -sizeX / 2; offZ = -sizeZ / 2; }
-                            case CENTER            -> { offX = -sizeX / 2; offY = -sizeY / 2; offZ = -sizeZ / 2; }
-                            case TOP_CENTER        -> { offX = -sizeX / 2; offY = -sizeY;      offZ = -sizeZ / 2; }
+                                    @Override public void setSelection(@Nonnull BlockSelection selection) { builderState.setSelection(selection); }
+                                    @Override public void sendSelectionToClient()                         { builderState.sendSelectionToClient(); }
+                                },
+                                this::setStatus);   // per-tile progress; the page throttles what actually gets sent
+                        long blockCount = result.blocks();
+                        int sizeX = result.sizeX(), sizeY = result.sizeY(), sizeZ = result.sizeZ();
+
+                        String success = (result.deltaOnly()
+                                ? String.format("Success! %d changed blocks in %d/%d tiles copied to clipboard (%dx%dx%d)",
+                                        blockCount, result.changedTiles(), result.tiles(), sizeX, sizeY, sizeZ)
+                                : String.format("Success! %d blocks copied to clipboard (%dx%dx%d)",
+                                        blockCount, sizeX, sizeY, sizeZ))
+                                + (result.outline() ? " – outline preview shown, full detail is pasted" : "");
+                        synchronized (this) {
+                            isProcessing  = false;
+                            statusMessage = success;
                         }
 
-                        selection.setSelectionArea(
-                                new Vector3i(offX, offY, offZ),
-                                new Vector3i(sizeX - 1 + offX, sizeY - 1 + offY, sizeZ - 1 + offZ));
-                        builderState.setSelection(selection);
-                        builderState.sendSelectionToClient();
-
-                        isProcessing  = false;
-                        statusMessage = String.format("Success! %d blocks copied to clipboard (%dx%dx%d)",
-                                blockCount, sizeX, sizeY, sizeZ);
-
                         playerRefComponent.sendMessage(
                                 Message.translation("server.heightmapMod.heightmapImport.success")
                                         .param("count",  blockCount)
@@ -577,9 +1006,14 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                                         .param("height", sizeY)
                                         .param("depth",  sizeZ));
 
+                        // Closed first, so a progress flush still pending cannot reach the dismissed page
+                        close();
                         playerComponent.getPageManager().setPage(r, store, Page.None);
                         PasteToolUtil.switchToPasteTool(playerComponent, playerRefComponent);
 
+                    } catch (IllegalArgumentException e) {
+                        // Unusable dataset or region – the message is meant for the player
+                        setError(e.getMessage());
                     } catch (Exception e) {
                         ((HytaleLogger.Api) BuilderToolsPlugin.get().getLogger()
                                 .at(Level.WARNING).withCause(e))
@@ -594,18 +1028,57 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
     /**
      * Quickly reads image dimensions without decoding all pixels, then computes
      * the effective structure size and estimated block count based on current settings.
+     * Also records whether the source is raw, which shows the raw-range controls.
      * Returns null if the path is empty or the file can't be read.
      */
     @Nullable
     private String computePreviewInfo(@Nonnull String path) {
+        rawInput = false;
         if (path.isEmpty()) return null;
         Path p = Paths.get(path);
         if (!Files.exists(p, LinkOption.NOFOLLOW_LINKS)) return null;
 
-        int[] dims = readImageDimensions(p);
-        if (dims == null) return null;
+        int fullW, fullH;
+        String sourceNote;
+        if (TiledDataset.isDataset(p)) {
+            // Tile index only – listing the directory and one tile header
+            TiledDataset dataset;
+            try { dataset = TiledDataset.open(p, channel); }
+            catch (Exception e) { return null; }
+            fullW = dataset.fullWidth();
+            fullH = dataset.fullHeight();
+            rawInput = !dataset.normalized();
+            sourceNote = String.format(" [%d tiles, %d×%d dataset]", dataset.tileCount(), fullW, fullH);
+        } else {
+            HeightmapIndex.Entry indexed = index != null ? index.lookup(p) : null;
+            if (indexed == null && !isSized(p)) {
+                // A deflate stream has no size trailer; it is counted once, off-thread, and the
+                // preview follows. Until then every edit shows this instead of probing here.
+                rawInput = true;
+                if (sizingFailed.contains(p)) {
+                    return "Unable to size " + p.getFileName() + " (unreadable, or not a square grid of raw floats)";
+                }
+                if (sizing.add(p)) sizeAsync(p, path);
+                return "Size pending – inflating " + p.getFileName() + "…";
+            }
+            HeightmapImport.Header header = indexed != null
+                    ? new HeightmapImport.Header(indexed.width(), indexed.height(), indexed.normalized())
+                    : HeightmapImport.readHeader(p);
+            if (header == null) return null;
+            fullW = header.width();
+            fullH = header.height();
+            rawInput = !header.normalized();
+            sourceNote = "";
+        }
 
-        int rawW = dims[0], rawH = dims[1];
+        Crop crop;
+        try { crop = Crop.clip(regionX, regionZ, regionW, regionH, fullW, fullH, "source"); }
+        catch (IllegalArgumentException e) { return e.getMessage(); }
+        if (!crop.isFull(fullW, fullH) && sourceNote.isEmpty()) {
+            sourceNote = String.format(" [cropped from %d×%d]", fullW, fullH);
+        }
+
+        int rawW = crop.width(), rawH = crop.height();
 
         // Compute effective XZ after maxSize cap
         float scale = 1.0f;
@@ -618,7 +1091,9 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
 
         // Estimate block count per mode
         long estBlocks = switch (importMode) {
-            case HEIGHTMAP -> (long) effW * effH * (heightScale / 2); // avg ~50% fill
+            case HEIGHTMAP -> shell
+                    ? (long) effW * effH * Math.min(heightScale, shellThickness + 1) // surface + side walls
+                    : (long) effW * effH * (heightScale / 2); // avg ~50% fill
             case SURFACE, NORMALMAP -> (long) effW * effH;
             case COLORMAP -> (long) effW * effH;
         };
@@ -632,246 +1107,48 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                 ? String.format(" (downscaled from %d×%d)", rawW, rawH)
                 : "";
 
-        return String.format("%s%s  ~%s blocks",
-                sizeLabel, scaleNote, formatCount(estBlocks));
+        return String.format("%s%s%s  ~%s blocks",
+                sizeLabel, scaleNote, sourceNote, formatCount(estBlocks));
     }
 
-    /** Fast dimension read via ImageIO reader — no pixel decoding. */
-    @Nullable
-    private static int[] readImageDimensions(@Nonnull Path path) {
-        String name = path.getFileName().toString().toLowerCase();
-
-        // Raw float files: square assumed, derive from byte count
-        if (name.endsWith(".f32")) {
-            try {
-                long bytes = Files.size(path);
-                int side = (int) Math.round(Math.sqrt(bytes / 4.0));
-                if ((long) side * side * 4 == bytes) return new int[]{side, side};
-            } catch (Exception ignored) {}
-            return null;
-        }
-        if (name.endsWith(".f16")) {
-            try {
-                long bytes = Files.size(path);
-                int side = (int) Math.round(Math.sqrt(bytes / 2.0));
-                if ((long) side * side * 2 == bytes) return new int[]{side, side};
-            } catch (Exception ignored) {}
-            return null;
-        }
-
-        // Standard image formats — use ImageReader to avoid full decode
-        try (var stream = javax.imageio.ImageIO.createImageInputStream(path.toFile())) {
-            if (stream == null) return null;
-            var readers = javax.imageio.ImageIO.getImageReaders(stream);
-            if (!readers.hasNext()) return null;
-            var reader = readers.next();
-            try {
-                reader.setInput(stream, true, true);
-                return new int[]{reader.getWidth(0), reader.getHeight(0)};
-            } finally {
-                reader.dispose();
-            }
-        } catch (Exception ignored) {
-            return null;
+    /** False for a compressed file that {@link CompressedRawSource#probe} would have to inflate to size. */
+    private static boolean isSized(@Nonnull Path p) {
+        try {
+            return CompressedRawSource.isSized(p);
+        } catch (Exception e) {
+            return false;
         }
     }
 
-    private static String formatCount(long n) {
-        if (n >= 1_000_000) return String.format("%.1fM", n / 1_000_000.0);
-        if (n >= 1_000)     return String.format("%.1fk", n / 1_000.0);
-        return String.valueOf(n);
-    }
-
-    // ── Height-data loading ────────────────────────────────────────────────────
-
     /**
-     * Loads the file and returns a 2-D float array {@code [z][x]} with values normalised to [0,1].
-     * Supports: standard images (8/16-bit), raw .f32 and .f16.
+     * Runs the counting pass of {@link CompressedRawSource#probe} off-thread, then recomputes the
+     * preview. A count that fails, or that leaves the file unsized, is remembered, so the file is
+     * not inflated again by each later edit.
      */
-    @Nullable
-    private static float[][] loadHeightData(@Nonnull Path path, @Nonnull Channel channel, boolean invert) {
-        String name = path.getFileName().toString().toLowerCase();
-
-        float[][] result;
-        if (name.endsWith(".f32")) {
-            result = loadRawFloat32(path);
-        } else if (name.endsWith(".f16")) {
-            result = loadRawFloat16(path);
-        } else {
-            result = loadImageHeights(path, channel);
-        }
-
-        if (result == null) return null;
-        if (invert) {
-            for (float[] row : result)
-                for (int i = 0; i < row.length; i++)
-                    row[i] = 1.0f - row[i];
-        }
-        return result;
-    }
-
-    /** Read a standard image file and extract height from the chosen channel. */
-    @Nullable
-    private static float[][] loadImageHeights(@Nonnull Path path, @Nonnull Channel channel) {
-        BufferedImage img;
-        try { img = ImageIO.read(path.toFile()); } catch (Exception e) { return null; }
-        if (img == null) return null;
-
-        int W = img.getWidth(), H = img.getHeight();
-        float[][] out = new float[H][W];
-
-        boolean hasAlpha = img.getColorModel().hasAlpha();
-        for (int z = 0; z < H; z++) {
-            for (int x = 0; x < W; x++) {
-                int rgba = img.getRGB(x, z);
-                float v = switch (channel) {
-                    case RED       -> ((rgba >> 16) & 0xFF) / 255.0f;
-                    case GREEN     -> ((rgba >>  8) & 0xFF) / 255.0f;
-                    case BLUE      -> ( rgba        & 0xFF) / 255.0f;
-                    case ALPHA     -> hasAlpha ? ((rgba >> 24) & 0xFF) / 255.0f : 1.0f;
-                    case LUMINANCE -> {
-                        float r = ((rgba >> 16) & 0xFF) / 255.0f;
-                        float g = ((rgba >>  8) & 0xFF) / 255.0f;
-                        float b = ( rgba        & 0xFF) / 255.0f;
-                        yield 0.2126f * r + 0.7152f * g + 0.0722f * b; // ITU-R BT.709
-                    }
-                };
-                out[z][x] = Math.max(0.0f, Math.min(1.0f, v));
+    private void sizeAsync(@Nonnull Path p, @Nonnull String path) {
+        CompletableFuture.runAsync(() -> {
+            boolean ok;
+            try { ok = CompressedRawSource.probe(p) != null && CompressedRawSource.isSized(p); }
+            catch (Exception e) { ok = false; }
+            if (!ok) sizingFailed.add(p);
+            sizing.remove(p);
+        }).thenRun(() -> {
+            synchronized (this) {
+                if (!path.equals(heightmapPath)) return;   // superseded by another file
+                previewInfo = computePreviewInfo(path);
             }
-        }
-        return out;
+            refreshThrottled();
+        });
     }
 
-    /** Read a raw little-endian 32-bit float binary file (width×height float values). */
-    @Nullable
-    private static float[][] loadRawFloat32(@Nonnull Path path) {
-        try {
-            byte[] bytes = Files.readAllBytes(path);
-            int count = bytes.length / 4;
-            int side  = (int) Math.round(Math.sqrt(count));
-            if (side * side != count) return null; // must be square for auto-detect
-
-            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
-            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
-            float[] raw = new float[count];
-            for (int i = 0; i < count; i++) {
-                raw[i] = buf.getFloat();
-                if (raw[i] < min) min = raw[i];
-                if (raw[i] > max) max = raw[i];
-            }
-            float range = max - min;
-            if (range == 0) range = 1;
-
-            float[][] out = new float[side][side];
-            for (int z = 0; z < side; z++)
-                for (int x = 0; x < side; x++)
-                    out[z][x] = (raw[z * side + x] - min) / range;
-            return out;
-        } catch (Exception e) { return null; }
-    }
-
-    /** Read a raw little-endian 16-bit float binary file (IEEE 754 half-precision). */
-    @Nullable
-    private static float[][] loadRawFloat16(@Nonnull Path path) {
-        try {
-            byte[] bytes = Files.readAllBytes(path);
-            int count = bytes.length / 2;
-            int side  = (int) Math.round(Math.sqrt(count));
-            if (side * side != count) return null;
-
-            ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
-            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
-            float[] raw = new float[count];
-            for (int i = 0; i < count; i++) {
-                raw[i] = halfToFloat(buf.getShort() & 0xFFFF);
-                if (raw[i] < min) min = raw[i];
-                if (raw[i] > max) max = raw[i];
-            }
-            float range = max - min;
-            if (range == 0) range = 1;
-
-            float[][] out = new float[side][side];
-            for (int z = 0; z < side; z++)
-                for (int x = 0; x < side; x++)
-                    out[z][x] = (raw[z * side + x] - min) / range;
-            return out;
-        } catch (Exception e) { return null; }
-    }
-
-    /** Convert IEEE 754 half-precision (16-bit) to single-precision float. */
-    private static float halfToFloat(int half) {
-        int sign     = (half >> 15) & 0x1;
-        int exponent = (half >> 10) & 0x1F;
-        int mantissa =  half        & 0x3FF;
-
-        int f;
-        if (exponent == 0) {
-            if (mantissa == 0) { f = sign << 31; }
-            else {
-                while ((mantissa & 0x400) == 0) { mantissa <<= 1; exponent--; }
-                exponent++;
-                mantissa &= ~0x400;
-                f = (sign << 31) | ((exponent + (127 - 15)) << 23) | (mantissa << 13);
-            }
-        } else if (exponent == 31) {
-            f = mantissa == 0
-                    ? (sign << 31) | 0x7F800000          // ±Inf
-                    : (sign << 31) | 0x7FC00000 | (mantissa << 13); // NaN
-        } else {
-            f = (sign << 31) | ((exponent + (127 - 15)) << 23) | (mantissa << 13);
-        }
-        return Float.intBitsToFloat(f);
-    }
-
-    /** Simple 3×3 box-blur smoothing pass. */
-    @Nonnull
-    private static float[][] boxBlur(@Nonnull float[][] src) {
-        int H = src.length, W = src[0].length;
-        float[][] dst = new float[H][W];
-        for (int z = 0; z < H; z++) {
-            for (int x = 0; x < W; x++) {
-                float sum = 0; int n = 0;
-                for (int dz = -1; dz <= 1; dz++) {
-                    for (int dx = -1; dx <= 1; dx++) {
-                        int nz = z + dz, nx = x + dx;
-                        if (nz >= 0 && nz < H && nx >= 0 && nx < W) { sum += src[nz][nx]; n++; }
-                    }
-                }
-                dst[z][x] = sum / n;
-            }
-        }
-        return dst;
+    private static String formatCount(long n) {
+        if (n >= 1_000_000) return String.format("%.1fM", n / 1_000_000.0);
+        if (n >= 1_000)     return String.format("%.1fk", n / 1_000.0);
+        return String.valueOf(n);
     }
 
     // ── Block-resolution helpers ───────────────────────────────────────────────
 
-    private int resolveBlockId(@Nonnull ImportMode mode,
-                               @Nonnull String cmPath,
-                               @Nullable BufferedImage cmImage,
-                               @Nonnull BlockColorIndex colorIndex,
-                               @Nonnull List<WeightedBlock> blocks,
-                               @Nonnull Random random,
-                               int srcX, int srcZ, int rawW, int rawH,
-                               float hNorm) {
-
-        return switch (mode) {
-            case COLORMAP, NORMALMAP -> {
-                if (cmImage != null) {
-                    int cx   = Math.min(srcX, cmImage.getWidth()  - 1);
-                    int cz   = Math.min(srcZ, cmImage.getHeight() - 1);
-                    int rgba = cmImage.getRGB(cx, cz);
-                    int r    = (rgba >> 16) & 0xFF;
-                    int g    = (rgba >>  8) & 0xFF;
-                    int b    =  rgba        & 0xFF;
-                    int id   = colorIndex.findClosestBlock(r, g, b);
-                    yield (id > 0) ? id : selectRandomBlock(blocks, random);
-                }
-                yield selectRandomBlock(blocks, random);
-            }
-            default -> selectRandomBlock(blocks, random);
-        };
-    }
-
     @Nullable
     private static List<WeightedBlock> parseBlockPattern(@Nonnull String pattern) {
         List<WeightedBlock> result = new ArrayList<>();
@@ -895,49 +1172,8 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
         return result.isEmpty() ? null : result;
     }
 
-    private static int selectRandomBlock(@Nonnull List<WeightedBlock> blocks, @Nonnull Random rng) {
-        if (blocks.size() == 1) return blocks.get(0).blockId();
-        int total = blocks.stream().mapToInt(WeightedBlock::weight).sum();
-        if (total <= 0) return blocks.get(0).blockId();
-        int roll = rng.nextInt(total), cumulative = 0;
-        for (WeightedBlock wb : blocks) {
-            cumulative += wb.weight();
-            if (roll < cumulative) return wb.blockId();
-        }
-        return blocks.get(0).blockId();
-    }
-
-    /** Rough upper-bound estimate for pre-allocating BlockSelection. */
-    private static int estimateBlockCount(ImportMode mode, int W, int H, int maxY) {
-        return switch (mode) {
-            case HEIGHTMAP -> W * H * maxY;     // worst case
-            case COLORMAP, SURFACE, NORMALMAP -> W * H;
-        };
-    }
-
     // ── Inner types ────────────────────────────────────────────────────────────
 
-    private record WeightedBlock(int blockId, int weight) {}
-
-    public enum ImportMode {
-        /** Solid terrain column, height derived from pixel brightness. */
-        HEIGHTMAP,
-        /** Single surface block per column. */
-        SURFACE,
-        /** Flat image → block-colour match (like ImageImportPage). */
-        COLORMAP,
-        /** Normal-map image drives surface normals; colour used for block match. */
-        NORMALMAP
-    }
-
-    public enum Channel {
-        LUMINANCE, RED, GREEN, BLUE, ALPHA
-    }
-
-    public enum Origin {
-        BOTTOM_FRONT_LEFT, BOTTOM_CENTER, CENTER, TOP_CENTER
-    }
-
     // ── PageData / Codec ───────────────────────────────────────────────────────
 
     public static class PageData {
@@ -947,11 +1183,25 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
         static final String KEY_HEIGHT_SCALE    = "@HeightScale";
         static final String KEY_MAX_SIZE        = "@MaxSize";
         static final String KEY_BLOCK_PATTERN   = "@BlockPattern";
+        static final String KEY_SEED            = "@Seed";
+        static final String KEY_NODATA          = "@Nodata";
+        static final String KEY_CLIP_LOW        = "@ClipLow";
+        static final String KEY_CLIP_HIGH       = "@ClipHigh";
+        static final String KEY_MATERIAL_RULES  = "@MaterialRules";
         static final String KEY_IMPORT_MODE     = "@ImportMode";
         static final String KEY_CHANNEL         = "@Channel";
         static final String KEY_ORIGIN          = "@Origin";
         static final String KEY_INVERT          = "@Invert";
         static final String KEY_SMOOTH          = "@Smooth";
+        static final String KEY_DELTA_ONLY      = "@DeltaOnly";
+        static final String KEY_LOD_PREVIEW     = "@LodPreview";
+        static final String KEY_DITHER          = "@Dither";
+        static final String KEY_REGION_X        = "@RegionX";
+        static final String KEY_REGION_Z        = "@RegionZ";
+        static final String KEY_REGION_W        = "@RegionWidth";
+        static final String KEY_REGION_H        = "@RegionHeight";
+        static final String KEY_SHELL           = "@Shell";
+        static final String KEY_SHELL_THICKNESS = "@ShellThickness";
         static final String KEY_IMPORT          = "Import";
         static final String KEY_BROWSE          = "Browse";
         static final String KEY_BROWSE_COLORMAP = "BrowseColormap";
@@ -967,11 +1217,25 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
         @Nullable Integer heightScale;
         @Nullable Integer maxSize;
         @Nullable String  blockPattern;
+        @Nullable String  seed;
+        @Nullable String  nodata;
+        @Nullable Double  clipLow;
+        @Nullable Double  clipHigh;
+        @Nullable String  materialRules;
         @Nullable String  importMode;
         @Nullable String  channel;
         @Nullable String  origin;
         @Nullable Boolean invert;
         @Nullable Boolean smooth;
+        @Nullable Boolean deltaOnly;
+        @Nullable Boolean lodPreview;
+        @Nullable Boolean dither;
+        @Nullable Integer regionX;
+        @Nullable Integer regionZ;
+        @Nullable Integer regionW;
+        @Nullable Integer regionH;
+        @Nullable Boolean shell;
+        @Nullable Integer shellThickness;
         @Nullable Boolean doImport;
         @Nullable Boolean browse;
         @Nullable Boolean browseColormap;
@@ -990,11 +1254,25 @@ public class HeightmapImportPage extends InteractiveCustomUIPage<HeightmapImport
                     .addField(new KeyedCodec(KEY_HEIGHT_SCALE,      Codec.INTEGER), (e, i) -> ((PageData) e).heightScale           = (Integer) i,                                      e -> ((PageData) e).heightScale)
                     .addField(new KeyedCodec(KEY_MAX_SIZE,          Codec.INTEGER), (e, i) -> ((PageData) e).maxSize               = (Integer) i,                                      e -> ((PageData) e).maxSize)
                     .addField(new KeyedCodec(KEY_BLOCK_PATTERN,     Codec.STRING),  (e, s) -> ((PageData) e).blockPattern          = (String)  s,                                      e -> ((PageData) e).blockPattern)
+                    .addField(new KeyedCodec(KEY_SEED,              Codec.STRING),  (e, s) -> ((PageData) e).seed                  = (String)  s,                                      e -> ((PageData) e).seed)
+                    .addField(new KeyedCodec(KEY_NODATA,            Codec.STRING),  (e, s) -> ((PageData) e).nodata                = (String)  s,                                      e -> ((PageData) e).nodata)
+                    .addField(new KeyedCodec(KEY_CLIP_LOW,          Codec.DOUBLE),  (e, d) -> ((PageData) e).clipLow               = (Double)  d,                                      e -> ((PageData) e).clipLow)
+                    .addField(new KeyedCodec(KEY_CLIP_HIGH,         Codec.DOUBLE),  (e, d) -> ((PageData) e).clipHigh              = (Double)  d,                                      e -> ((PageData) e).clipHigh)
+                    .addField(new KeyedCodec(KEY_MATERIAL_RULES,    Codec.STRING),  (e, s) -> ((PageData) e).materialRules         = (String)  s,                                      e -> ((PageData) e).materialRules)
                     .addField(new KeyedCodec(KEY_IMPORT_MODE,       Codec.STRING),  (e, s) -> ((PageData) e).importMode            = (String)  s,                                      e -> ((PageData) e).importMode)
                     .addField(new KeyedCodec(KEY_CHANNEL,           Codec.STRING),  (e, s) -> ((PageData) e).channel               = (String)  s,                                      e -> ((PageData) e).channel)
                     .addField(new KeyedCodec(KEY_ORIGIN,            Codec.STRING),  (e, s) -> ((PageData) e).origin                = (String)  s,                                      e -> ((PageData) e).origin)
                     .addField(new KeyedCodec(KEY_INVERT,            Codec.BOOLEAN), (e, b) -> ((PageData) e).invert                = (Boolean) b,                                      e -> ((PageData) e).invert)
                     .addField(new KeyedCodec(KEY_SMOOTH,            Codec.BOOLEAN), (e, b) -> ((PageData) e).smooth                = (Boolean) b,                                      e -> ((PageData) e).smooth)
+                    .addField(new KeyedCodec(KEY_DELTA_ONLY,        Codec.BOOLEAN), (e, b) -> ((PageData) e).deltaOnly             = (Boolean) b,                                      e -> ((PageData) e).deltaOnly)
+                    .addField(new KeyedCodec(KEY_LOD_PREVIEW,       Codec.BOOLEAN), (e, b) -> ((PageData) e).lodPreview            = (Boolean) b,                                      e -> ((PageData) e).lodPreview)
+                    .addField(new KeyedCodec(KEY_DITHER,            Codec.BOOLEAN), (e, b) -> ((PageData) e).dither                = (Boolean) b,                                      e -> ((PageData) e).dither)
+                    .addField(new KeyedCodec(KEY_REGION_X,          Codec.INTEGER), (e, i) -> ((PageData) e).regionX               = (Integer) i,                                      e -> ((PageData) e).regionX)
+                    .addField(new KeyedCodec(KEY_REGION_Z,          Codec.INTEGER), (e, i) -> ((PageData) e).regionZ               = (Integer) i,                                      e -> ((PageData) e).regionZ)
+                    .addField(new KeyedCodec(KEY_REGION_W,          Codec.INTEGER), (e, i) -> ((PageData) e).regionW               = (Integer) i,                                      e -> ((PageData) e).regionW)
+                    .addField(new KeyedCodec(KEY_REGION_H,          Codec.INTEGER), (e, i) -> ((PageData) e).regionH               = (Integer) i,                                      e -> ((PageData) e).regionH)
+                    .addField(new KeyedCodec(KEY_SHELL,             Codec.BOOLEAN), (e, b) -> ((PageData) e).shell                 = (Boolean) b,                                      e -> ((PageData) e).shell)
+                    .addField(new KeyedCodec(KEY_SHELL_THICKNESS,   Codec.INTEGER), (e, i) -> ((PageData) e).shellThickness        = (Integer) i,                                      e -> ((PageData) e).shellThickness)
                     .addField(new KeyedCodec(KEY_IMPORT,            Codec.STRING),  (e, s) -> ((PageData) e).doImport              = "true".equalsIgnoreCase((String) s),               e -> Boolean.TRUE.equals(((PageData) e).doImport)              ? "true" : null)
                     .addField(new KeyedCodec(KEY_BROWSE,            Codec.STRING),  (e, s) -> ((PageData) e).browse                = "true".equalsIgnoreCase((String) s),               e -> Boolean.TRUE.equals(((PageData) e).browse)                ? "true" : null)
                     .addField(new KeyedCodec(KEY_BROWSE_COLORMAP,   Codec.STRING),  (e, s) -> ((PageData) e).browseColormap        = "true".equalsIgnoreCase((String) s),               e -> Boolean.TRUE.equals(((PageData) e).browseColormap)        ? "true" : null)
@@ -0,0 +1,94 @@
+package net.wolvesfortress.heightmap.heightfield;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import javax.annotation.Nonnull;
+
+/**
+ * {@link HeightKernels} on {@code jdk.incubator.vector}. Int and float lanes are both 32 bits, so
+ * one ARGB int vector converts lane-for-lane into one float vector of the preferred shape
+ * (8 lanes on AVX2, 16 on AVX-512). Tails fall back to the scalar kernels.
+ */
+final class VectorHeightKernels implements HeightKernels {
+
+    private static final VectorSpecies<Integer> INTS   = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float>   FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    private static final float INV_255 = 1.0f / 255.0f;
+
+    private final ScalarHeightKernels tail = new ScalarHeightKernels();
+
+    VectorHeightKernels() {
+        if (INTS.length() != FLOATS.length()) throw new IllegalStateException("Mismatched vector shapes");
+    }
+
+    @Override
+    public void extractChannel(@Nonnull int[] argb, int srcOff, @Nonnull float[] dst, int dstOff, int len,
+                               @Nonnull Channel channel, boolean hasAlpha) {
+        if (channel == Channel.ALPHA && !hasAlpha) {
+            java.util.Arrays.fill(dst, dstOff, dstOff + len, 1.0f);
+            return;
+        }
+        int bound = INTS.loopBound(len), i = 0;
+        for (; i < bound; i += INTS.length()) {
+            IntVector px = IntVector.fromArray(INTS, argb, srcOff + i);
+            FloatVector v = switch (channel) {
+                case RED   -> channel(px, 16).mul(INV_255);
+                case GREEN -> channel(px,  8).mul(INV_255);
+                case BLUE  -> channel(px,  0).mul(INV_255);
+                case ALPHA -> channel(px, 24).mul(INV_255);
+                case LUMINANCE -> channel(px, 16).mul(0.2126f * INV_255)                      // ITU-R BT.709
+                        .add(channel(px, 8).mul(0.7152f * INV_255))
+                        .add(channel(px, 0).mul(0.0722f * INV_255));
+            };
+            v.max(0.0f).min(1.0f).intoArray(dst, dstOff + i);
+        }
+        if (i < len) tail.extractChannel(argb, srcOff + i, dst, dstOff + i, len - i, channel, hasAlpha);
+    }
+
+    private static FloatVector channel(IntVector px, int shift) {
+        IntVector c = (shift == 0 ? px : px.lanewise(VectorOperators.LSHR, shift)).and(0xFF);
+        return (FloatVector) c.convert(VectorOperators.I2F, 0);
+    }
+
+    @Override
+    public void minMax(@Nonnull float[] src, int off, int len, @Nonnull float[] minMax) {
+        int bound = FLOATS.loopBound(len), i = 0;
+        if (bound > 0) {
+            FloatVector vmin = FloatVector.broadcast(FLOATS, minMax[0]);
+            FloatVector vmax = FloatVector.broadcast(FLOATS, minMax[1]);
+            for (; i < bound; i += FLOATS.length()) {
+                FloatVector v = FloatVector.fromArray(FLOATS, src, off + i);
+                // Vector min/max propagate NaN; skip those lanes as the scalar comparisons do
+                VectorMask<Float> number = v.compare(VectorOperators.EQ, v);
+                vmin = vmin.blend(vmin.min(v), number);
+                vmax = vmax.blend(vmax.max(v), number);
+            }
+            minMax[0] = vmin.reduceLanes(VectorOperators.MIN);
+            minMax[1] = vmax.reduceLanes(VectorOperators.MAX);
+        }
+        if (i < len) tail.minMax(src, off + i, len - i, minMax);
+    }
+
+    @Override
+    public void affineClamp(@Nonnull float[] data, int off, int len, float scale, float offset) {
+        int bound = FLOATS.loopBound(len), i = 0;
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, data, off + i)
+                    .fma(scale, offset)
+                    .max(0.0f).min(1.0f)
+                    .intoArray(data, off + i);
+        }
+        if (i < len) tail.affineClamp(data, off + i, len - i, scale, offset);
+    }
+
+    @Nonnull
+    @Override
+    public String describe() {
+        return "SIMD " + FLOATS.vectorBitSize() + "-bit (" + FLOATS.length() + " lanes)";
+    }
+}